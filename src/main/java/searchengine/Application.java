@@ -6,7 +6,8 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import searchengine.config.*;
 
 @SpringBootApplication
-@EnableConfigurationProperties({Server.class, Datasource.class, SitesList.class, Site.class, SearchConfig.class})
+@EnableConfigurationProperties({Server.class, Datasource.class, SitesList.class, Site.class, SearchConfig.class,
+        CrawlerConfig.class, SegmentConfig.class})
 public class Application {
     public static void main(String[] args) {
         SpringApplication.run(Application.class, args);
@@ -0,0 +1,17 @@
+package searchengine.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+
+@Data
+@ConstructorBinding
+@ConfigurationProperties(prefix = "crawler-settings")
+public class CrawlerConfig {
+    private final Integer fetchThreads;
+    private final Integer pageQueueCapacity;
+    private final Integer pageLoaderThreads;
+    private final Integer pageBatchSize;
+    private final Integer lemmatizerThreads;
+    private final Integer normalFormCacheSize;
+}
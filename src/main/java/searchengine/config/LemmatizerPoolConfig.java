@@ -0,0 +1,31 @@
+package searchengine.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class LemmatizerPoolConfig {
+
+    /**
+     * Общий для всех сайтов пул потоков лемматизации. Лемматизация нагружает только процессор, поэтому по умолчанию
+     * размер пула равен количеству ядер.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService lemmatizerPool(CrawlerConfig crawlerConfig) {
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        if (crawlerConfig.getLemmatizerThreads() != null && crawlerConfig.getLemmatizerThreads() > 0) {
+            threadCount = crawlerConfig.getLemmatizerThreads();
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "Lemmatizer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
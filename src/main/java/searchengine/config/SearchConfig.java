@@ -10,4 +10,6 @@ import org.springframework.boot.context.properties.ConstructorBinding;
 public class SearchConfig {
     private final Integer wordRankLimit;
     private final Integer snippetInterval;
+    private final Integer cacheSize;
+    private final Integer cacheTtl;
 }
@@ -0,0 +1,16 @@
+package searchengine.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+
+@Data
+@ConstructorBinding
+@ConfigurationProperties(prefix = "segment-settings")
+public class SegmentConfig {
+    private final Boolean enabled;
+    private final String path;
+    private final Integer mergeFactor;
+    private final Long minSegmentSize;
+    private final Long mergeBytesPerSecond;
+}
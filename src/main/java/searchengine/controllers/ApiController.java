@@ -34,8 +34,8 @@ public class ApiController {
 
     @GetMapping("/startIndexing")
     @ResponseBody
-    public ResponseEntity startIndexing() {
-        ResponseEntity result = indexingService.performIndexing();
+    public ResponseEntity startIndexing(@RequestParam(defaultValue = "false") boolean incremental) {
+        ResponseEntity result = indexingService.performIndexing(incremental);
         return result;
     }
 
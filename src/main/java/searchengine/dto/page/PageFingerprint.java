@@ -0,0 +1,16 @@
+package searchengine.dto.page;
+
+import lombok.Value;
+
+/**
+ * Данные проиндексированной страницы, по которым при повторном обходе определяется, изменилась ли она: валидаторы
+ * HTTP-кеша из последнего ответа и хеш видимого текста и заголовка
+ */
+@Value
+public class PageFingerprint {
+    Integer id;
+    String path;
+    String etag;
+    String lastModified;
+    String contentHash;
+}
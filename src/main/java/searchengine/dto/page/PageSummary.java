@@ -0,0 +1,14 @@
+package searchengine.dto.page;
+
+import lombok.Value;
+
+/**
+ * Облегченное представление страницы без содержимого
+ */
+@Value
+public class PageSummary {
+    Integer id;
+    Integer siteId;
+    String path;
+    String title;
+}
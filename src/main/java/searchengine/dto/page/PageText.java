@@ -0,0 +1,23 @@
+package searchengine.dto.page;
+
+import lombok.Getter;
+
+/**
+ * Видимый текст страницы. Для страниц, сохраненных без текста, вместо него передается html
+ */
+@Getter
+public class PageText {
+    private final Integer id;
+    private final String text;
+    private final String content;
+
+    public PageText(Integer id, String text) {
+        this(id, text, null);
+    }
+
+    public PageText(Integer id, String text, String content) {
+        this.id = id;
+        this.text = text;
+        this.content = content;
+    }
+}
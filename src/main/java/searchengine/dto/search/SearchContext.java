@@ -0,0 +1,47 @@
+package searchengine.dto.search;
+
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Неизменяемый результат поиска по набору лемм: абсолютная релевантность найденных страниц и леммы запроса для
+ * каждого сайта в порядке возрастания их встречаемости на сайте. Контекст не зависит от окна выдачи и словоформ
+ * запроса, поэтому один и тот же контекст используется параллельными запросами и постраничной выдачей из кеша.
+ */
+@Getter
+public class SearchContext {
+    private final Map<Integer, Float> absoluteRelevance;
+    private final Map<String, List<String>> siteLemmas;
+    private final float relevanceMax;
+
+    public SearchContext(Map<Integer, Float> absoluteRelevance, Map<String, List<String>> siteLemmas) {
+        this.absoluteRelevance = Map.copyOf(absoluteRelevance);
+
+        Map<String, List<String>> lemmas = new HashMap<>();
+        siteLemmas.forEach((siteUrl, siteLemmaList) -> lemmas.put(siteUrl, List.copyOf(siteLemmaList)));
+        this.siteLemmas = Map.copyOf(lemmas);
+
+        float max = 0;
+        for (float relevance: absoluteRelevance.values()) {
+            max = Math.max(max, relevance);
+        }
+        this.relevanceMax = max;
+    }
+
+    public int getPageCount() {
+        return absoluteRelevance.size();
+    }
+
+    /**
+     * Метод возвращает релевантность страницы относительно самой релевантной страницы запроса
+     *
+     * @param pageId id страницы
+     * @return относительная релевантность от 0 до 1
+     */
+    public float getRelativeRelevance(int pageId) {
+        return relevanceMax == 0 ? 0 : absoluteRelevance.getOrDefault(pageId, 0f) / relevanceMax;
+    }
+}
@@ -2,20 +2,23 @@ package searchengine.lemmas;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.lucene.morphology.LuceneMorphology;
-import org.jsoup.Jsoup;
-import org.springframework.dao.IncorrectResultSizeDataAccessException;
 import org.springframework.stereotype.Component;
 import searchengine.model.*;
+import searchengine.parserData.IndexGeneration;
 import searchengine.parserData.PageLoaderInfo;
 import searchengine.parserData.SiteIndexingData;
 import searchengine.repository.IndexRepository;
 import searchengine.repository.LemmaRepository;
 import searchengine.repository.PageRepository;
+import searchengine.segment.SegmentIndex;
+import searchengine.utils.HtmlExtractor;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 import static searchengine.utils.IndexingUtils.changeSiteStatusTime;
@@ -24,11 +27,13 @@ import static searchengine.utils.IndexingUtils.changeSiteStatusTime;
 @Slf4j
 @RequiredArgsConstructor
 public class Lemmatizer {
-    private final LuceneMorphology luceneMorph;
+    private final NormalFormCache normalFormCache;
     private final LemmaRepository lemmaRepository;
     private final IndexRepository indexRepository;
     private final PageRepository pageRepository;
-    private final SiteIndexingData siteIndexingData;
+    private final ExecutorService lemmatizerPool;
+    private final IndexGeneration indexGeneration;
+    private final SegmentIndex segmentIndex;
 
     /**
      * Метод разделяет текст на слова, находит все леммы и считает их количество.
@@ -43,21 +48,13 @@ public class Lemmatizer {
             if (text == null || text.isEmpty() || text.isBlank())
                 return result;
 
-            List<String> listWords = getListWords(text);
+            WordTokenizer.forEachWord(text, item -> {
+                NormalFormCache.WordForm wordForm = normalFormCache.getWordForm(item);
 
-            for (String item: listWords) {
-                List<String> wordBaseForms = luceneMorph.getNormalForms(item);
-                String firstFormWord = wordBaseForms.get(0);
-
-                if (isServicePartSpeech(firstFormWord))
-                    continue;
-
-                if (result.containsKey(firstFormWord)) {
-                    result.put(firstFormWord, result.get(firstFormWord) + 1);
-                } else {
-                    result.put(firstFormWord, 1);
+                if (!wordForm.isService()) {
+                    result.merge(wordForm.getNormalForm(), 1, Integer::sum);
                 }
-            }
+            });
 
             return result;
         } catch (Exception e) {
@@ -68,53 +65,41 @@ public class Lemmatizer {
     }
 
     /**
-     * Метод разделяет текст на слова, находит все леммы и считает их количество.
+     * Метод разделяет видимый текст страницы на слова, находит все леммы и считает их количество.
      *
-     * @param html текст из которого будут выбираться леммы
      * @param site сайт, для которого будет установлена связь с леммой
      * @param page страница, по которой выполняется поиск и сохраннение лемм
      * @return true в случае успешного добавления, в противном случае false
      */
-    public boolean addLemmas(String html, Site site, Page page) throws InterruptedException {
+    public boolean addLemmas(Site site, Page page) throws InterruptedException {
         if (Thread.currentThread().isInterrupted())
             throw new InterruptedException();
 
-        HashMap<String, Integer> lemmas = getLemmas(clearHTML(html));
-        List<Lemma> lemmaList = new ArrayList<>();
-        List<Index> indexList = new ArrayList<>();
-        List<Lemma> savedLemma = new ArrayList<>();
-
+        HashMap<String, Integer> lemmas = getLemmas(HtmlExtractor.getText(page));
+        Map<String, Integer> frequencyDelta = new HashMap<>();
         for (String item: lemmas.keySet()) {
-            if (Thread.currentThread().isInterrupted())
-                throw new InterruptedException();
-
-            lemmaList.add(checkLemma(site, item, page));
+            frequencyDelta.put(item, 1);
         }
 
-        savedLemma = lemmaRepository.saveAll(lemmaList);
+        lemmaRepository.upsertFrequency(site, frequencyDelta);
+        Map<String, Integer> lemmaIds = lemmaRepository.findIdsByLemmas(site, lemmas.keySet());
+        List<Index> indexList = new ArrayList<>();
 
-        for (Lemma lemma: savedLemma) {
+        for (Map.Entry<String, Integer> item: lemmaIds.entrySet()) {
             if (Thread.currentThread().isInterrupted())
                 throw new InterruptedException();
-            indexList.add(createIndex(page, lemma, lemmas.get(lemma.getLemma())));
+
+            Lemma lemma = new Lemma(site, item.getKey(), 0);
+            lemma.setId(item.getValue());
+            indexList.add(createIndex(page, lemma, lemmas.get(item.getKey())));
         }
 
-        indexRepository.saveAll(indexList);
+        indexRepository.bulkInsert(indexList);
+        segmentIndex.flush(site, Map.of(page.getId(), lemmas));
+        indexGeneration.increment();
         return true;
     }
 
-    /**
-     * Метод очищает html  от тегов
-     *
-     * @param html код страницы
-     * @return чистая от тегов строка
-     */
-    public String clearHTML(String html) {
-        String result = Jsoup.parse(html).text();
-
-        return result;
-    }
-
     /**
      * Метод проверяет не является ли слово служебной частью речи
      *
@@ -122,59 +107,17 @@ public class Lemmatizer {
      * @return true если это служебная часть речи, в проитивном случае false
      */
     public boolean isServicePartSpeech(String firstFormWord) {
-        List<String> morphValues = luceneMorph.getMorphInfo(firstFormWord);
-        String firstValue = morphValues.get(0);
-
-        return firstValue.contains("СОЮЗ") || firstValue.contains("ПРЕДЛ") || firstValue.contains("МЕЖД") || firstValue.contains("ЧАСТ") || firstValue.contains("ПРЕДК");
+        return normalFormCache.isServicePartSpeech(firstFormWord);
     }
 
     /**
-     * Метод очищает строку, в которой ищутся леммы, от лишних символов, разбивая на массив отдельных слов
+     * Метод разбивает строку, в которой ищутся леммы, на отдельные русские слова в нижнем регистре
      *
      * @param text строка, в которой ищутся леммы
-     * @return ичищенная и разбитая на массив отдельных слов строка
+     * @return список слов строки
      */
     public List<String> getListWords(String text) {
-        List<String> result = new ArrayList<>();
-
-        text = text.toLowerCase(Locale.ROOT);
-        String cleanLine = text.replaceAll("[^а-яё&&[^\\s{2,}]]+", " ");
-
-        if (!cleanLine.isEmpty()){
-            result = List.of(cleanLine.split(" "));
-        }
-
-        return result;
-    }
-
-    /**
-     * Метод проверяет на существование в БД леммы. Увеличивает ее frequency на единицу, если лемма ранее встречалась на
-     * других страницах сайта
-     *
-     * @param site сайт на котором найдена лемма
-     * @param lemma лемма
-     * @param page страница на которой найдена лемма
-     * @return экземпляр класс Lemma
-     */
-    public Lemma checkLemma(Site site, String lemma, Page page) throws IncorrectResultSizeDataAccessException, InterruptedException {
-        if (Thread.currentThread().isInterrupted())
-            throw new InterruptedException();
-
-        Lemma lemmaObj = null;
-        try{
-            lemmaObj = lemmaRepository.findByLemmaAndSiteId(lemma, site);
-
-            if (lemmaObj != null && indexRepository.findByPageIdAndLemmaId(page, lemmaObj) == null) {
-                lemmaObj.setFrequency(lemmaObj.getFrequency() + 1);
-            } else {
-                lemmaObj = new Lemma(site, lemma, 1);
-            }
-        } catch (IncorrectResultSizeDataAccessException e) {
-            log.error("Lemma: " + lemma + ", Site: " + site.getName() + ", Page: " + page.getPath() + ". Info: " + e.getMessage());
-            throw new IncorrectResultSizeDataAccessException(e.getActualSize());
-        }
-
-        return lemmaObj;
+        return WordTokenizer.getWords(text);
     }
 
     /**
@@ -189,22 +132,27 @@ public class Lemmatizer {
         return new Index(page, lemma, wordRank);
     }
 
-    public HashMap<String, String> getRatioLemmasAndQuery(String query, HashMap<Lemma, Integer> selectedLemmas) {
+    /**
+     * Метод сопоставляет леммам запроса слова, в форме которых они указаны в запросе
+     *
+     * @param query поисковый запрос
+     * @param lemmas леммы запроса
+     * @return ключ является леммой, а значение словом из запроса
+     */
+    public HashMap<String, String> getRatioLemmasAndQuery(String query, Collection<String> lemmas) {
 
         List<String> listWords = getListWords(query);
         HashMap<String, String> result = new HashMap<>();
 
         for (String item: listWords) {
-            List<String> wordBaseForms = luceneMorph.getNormalForms(item);
-            String firstFormWord = wordBaseForms.get(0);
+            NormalFormCache.WordForm wordForm = normalFormCache.getWordForm(item);
+            String firstFormWord = wordForm.getNormalForm();
 
-            if (isServicePartSpeech(firstFormWord))
+            if (wordForm.isService())
                 continue;
 
-            for (Lemma lemmaItem: selectedLemmas.keySet()) {
-                if (lemmaItem.getLemma().equals(firstFormWord)) {
-                    result.put(firstFormWord, item);
-                }
+            if (lemmas.contains(firstFormWord)) {
+                result.put(firstFormWord, item);
             }
         }
 
@@ -216,106 +164,183 @@ public class Lemmatizer {
      * Для больше производительности индексация производится по единоразово загруженным из БД данным
      *
      * @param site текущий сайт
-     * @param linkSet список страниц на загрузку
-     * @param pageLoaderInfoMap временное хранилище данных страниц для загрузки
+     * @param pageInfoList список загруженных страниц
+     * @param siteIndexingData данные индексации текущего сайта
      */
     public void indexBundleOfPages(Site site,
-                                   Set<String> linkSet,
-                                   ConcurrentHashMap<String, PageLoaderInfo> pageLoaderInfoMap) throws IOException, InterruptedException {
+                                   List<PageLoaderInfo> pageInfoList,
+                                   SiteIndexingData siteIndexingData) throws IOException, InterruptedException {
         if (Thread.currentThread().isInterrupted())
             throw new InterruptedException();
 
-        log.info("--------------------------------------Start saving: " + new Date() + ", count = " + linkSet.size());
-        List<Page> pageList = setPageList(site, linkSet, pageLoaderInfoMap);
+        log.info("--------------------------------------Start saving: " + new Date() + ", count = " + pageInfoList.size());
+        List<Page> pageList = setPageList(site, pageInfoList);
         List<Page> savedPageList = pageRepository.saveAll(pageList);
         changeSiteStatusTime(site.getId());
-        indexSavedPageList(site, savedPageList);
-        log.info("--------------------------------------End saving: " + new Date() + ", count = " + linkSet.size());
+        indexSavedPageList(site, savedPageList, siteIndexingData);
+        log.info("--------------------------------------End saving: " + new Date() + ", count = " + pageInfoList.size()
+                + ", normal form cache: " + normalFormCache.size() + " words, hit rate "
+                + String.format(Locale.ROOT, "%.3f", normalFormCache.getHitRate()));
     }
 
     /**
-     * Метод проверяет создана ли для сайта переданная лемма. Если создана, то увеличивает ее frequency на единицу.
-     * В противном случае создает новый экземпляр леммы с frequency=1.
+     * Метод ищет лемму в словаре сайта. Если леммы в словаре нет, то создает новый экземпляр леммы без id, который
+     * будет заполнен после записи лемм в БД. Запросов к БД метод не выполняет.
      *
      * @param site текущий сайт
-     * @param lemma сохраняемая лемма
-     * @param page текущая страница
-     * @return экземпляр класса Lemma
+     * @param lemma лемма, найденная на странице
+     * @param siteIndexingData данные индексации текущего сайта
+     * @return экземпляр класса Lemma из словаря сайта
      */
-    public Lemma bundleCheckLemma(Site site, String lemma, Page page) throws IncorrectResultSizeDataAccessException, InterruptedException {
+    public Lemma bundleCheckLemma(Site site, String lemma, SiteIndexingData siteIndexingData) throws InterruptedException {
         if (Thread.currentThread().isInterrupted())
             throw new InterruptedException();
 
-        Lemma lemmaObj = siteIndexingData.getLemmaMap().get(lemma);
+        return siteIndexingData.getLemmaMap().computeIfAbsent(lemma, item -> new Lemma(site, item, 0));
+    }
 
-        if (lemmaObj != null && !siteIndexingData.getIndexDataSet().contains(page.getId() + "_" + lemmaObj.getId())) {
-            lemmaObj.setFrequency(lemmaObj.getFrequency() + 1);
-        } else {
-            lemmaObj = new Lemma(site, lemma, 1);
+    /**
+     * Метод загружает словарь лемм сайта из БД, если он еще не загружен
+     *
+     * @param site текущий сайт
+     * @param siteIndexingData данные индексации текущего сайта
+     */
+    private void loadLemmaDictionary(Site site, SiteIndexingData siteIndexingData) {
+        if (siteIndexingData.isLoaded()) {
+            return;
         }
 
-        return lemmaObj;
+        synchronized (siteIndexingData) {
+            if (siteIndexingData.isLoaded()) {
+                return;
+            }
+
+            for (Lemma lemma: lemmaRepository.getListLemmaBySite(site)) {
+                siteIndexingData.getLemmaMap().putIfAbsent(lemma.getLemma(), lemma);
+            }
+            siteIndexingData.setLoaded(true);
+        }
     }
 
     /**
      * Создание списка страниц для загрузки
      *
      * @param site текущий сайт
-     * @param linkSet список новых страниц для индексации
-     * @param pageLoaderInfoMap временное хранилище данных страниц для загрузки
+     * @param pageInfoList список загруженных страниц для индексации
      */
-    private List<Page> setPageList(Site site, Set<String> linkSet,
-                                   ConcurrentHashMap<String, PageLoaderInfo> pageLoaderInfoMap) throws InterruptedException {
+    private List<Page> setPageList(Site site, List<PageLoaderInfo> pageInfoList) throws InterruptedException {
         if (Thread.currentThread().isInterrupted())
             throw new InterruptedException();
 
         List<Page> pageList = new ArrayList<>();
-        for (String item : linkSet) {
-            try {
-                PageLoaderInfo pageLoaderInfo = pageLoaderInfoMap.get(item);
-                Page page = new Page();
-                page.setPath(pageLoaderInfo.getLink());
-                page.setSiteId(site);
-                page.setContent(pageLoaderInfo.getHtml());
-                page.setCode(200);
-                pageList.add(page);
-            } catch(NullPointerException e){
-                System.out.println("Url: " + item + ", Message: " + e.getMessage());
-                continue;
-            }
+        for (PageLoaderInfo pageLoaderInfo : pageInfoList) {
+            Page page = new Page();
+            page.setPath(pageLoaderInfo.getLink());
+            page.setSiteId(site);
+            page.setContent(pageLoaderInfo.getHtml());
+            page.setTitle(pageLoaderInfo.getTitle());
+            page.setText(pageLoaderInfo.getText());
+            page.setContentHash(pageLoaderInfo.getContentHash());
+            page.setEtag(pageLoaderInfo.getEtag());
+            page.setLastModified(pageLoaderInfo.getLastModified());
+            page.setCode(200);
+            pageList.add(page);
         }
         return pageList;
     }
 
     /**
-     * Лемматизация новых страниц
+     * Лемматизация новых страниц. Страницы лемматизируются параллельно, затем для пачки считается, на скольких
+     * страницах встретилась каждая лемма, и frequency лемм увеличивается в БД одним запросом
+     * INSERT ... ON DUPLICATE KEY UPDATE. Словарь сайта в памяти
+     * хранит только id лемм, поэтому несколько загрузчиков страниц одного сайта работают без общей блокировки
+     * и не теряют изменения друг друга.
      *
      * @param site текущий сайт
      * @param savedPageList список новых страниц для индексации
+     * @param siteIndexingData данные индексации текущего сайта
      */
     public void indexSavedPageList(Site site,
-                                   List<Page> savedPageList) throws IOException, InterruptedException {
+                                   List<Page> savedPageList,
+                                   SiteIndexingData siteIndexingData) throws IOException, InterruptedException {
         if (Thread.currentThread().isInterrupted())
             throw new InterruptedException();
 
-        for (Page page: savedPageList) {
-            HashMap<String, Integer> lemmas = getLemmas(clearHTML(page.getContent()));
-            List<Lemma> newLemmaList = new ArrayList<>();
-            List<Index> newIndexList = new ArrayList<>();
-            List<Lemma> savedLemma = new ArrayList<>();
-
+        Map<Page, HashMap<String, Integer>> pageLemmas = lemmatizePages(savedPageList);
+        Map<String, Integer> frequencyDelta = new HashMap<>();
+        for (HashMap<String, Integer> lemmas: pageLemmas.values()) {
             for (String lemma: lemmas.keySet()) {
-                newLemmaList.add(checkLemma(site, lemma, page));
+                frequencyDelta.merge(lemma, 1, Integer::sum);
+            }
+        }
+
+        loadLemmaDictionary(site, siteIndexingData);
+        saveLemmaFrequency(site, frequencyDelta, siteIndexingData);
+
+        List<Index> newIndexList = new ArrayList<>();
+        for (Map.Entry<Page, HashMap<String, Integer>> entry: pageLemmas.entrySet()) {
+            for (Map.Entry<String, Integer> lemma: entry.getValue().entrySet()) {
+                newIndexList.add(createIndex(entry.getKey(), siteIndexingData.getLemmaMap().get(lemma.getKey()),
+                        lemma.getValue()));
+            }
+        }
+
+        indexRepository.bulkInsert(newIndexList);
+
+        Map<Integer, HashMap<String, Integer>> segmentPages = new HashMap<>();
+        pageLemmas.forEach((page, lemmas) -> segmentPages.put(page.getId(), lemmas));
+        segmentIndex.flush(site, segmentPages);
+        indexGeneration.increment();
+    }
+
+    /**
+     * Метод лемматизирует страницы пачки параллельно в общем пуле потоков лемматизации. Если поток загрузчика прерван,
+     * незавершенные задачи пачки отменяются.
+     *
+     * @param pageList список страниц для лемматизации
+     * @return ключ является страницей, а значение ее леммами с количеством повторений
+     */
+    private Map<Page, HashMap<String, Integer>> lemmatizePages(List<Page> pageList) throws InterruptedException {
+        List<Callable<HashMap<String, Integer>>> tasks = new ArrayList<>(pageList.size());
+        for (Page page: pageList) {
+            tasks.add(() -> getLemmas(HtmlExtractor.getText(page)));
+        }
+
+        List<Future<HashMap<String, Integer>>> results = lemmatizerPool.invokeAll(tasks);
+        Map<Page, HashMap<String, Integer>> pageLemmas = new LinkedHashMap<>();
+        try {
+            for (int i = 0; i < pageList.size(); i++) {
+                pageLemmas.put(pageList.get(i), results.get(i).get());
             }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Lemmatization failed", e.getCause());
+        }
 
-            savedLemma = lemmaRepository.saveAll(newLemmaList);
+        return pageLemmas;
+    }
 
-            for (Lemma lemma: savedLemma) {
-                siteIndexingData.getLemmaMap().put(lemma.getLemma(), lemma);
-                siteIndexingData.getIndexDataSet().add(page.getId() + "_" + lemma.getId());
-                newIndexList.add(createIndex(page, lemma, lemmas.get(lemma.getLemma())));
+    /**
+     * Метод увеличивает frequency лемм пачки страниц в БД и заполняет id лемм, которых еще не было в словаре сайта
+     *
+     * @param site текущий сайт
+     * @param frequencyDelta ключ является леммой, а значение количеством страниц пачки, на которых она найдена
+     * @param siteIndexingData данные индексации текущего сайта
+     */
+    private void saveLemmaFrequency(Site site,
+                                    Map<String, Integer> frequencyDelta,
+                                    SiteIndexingData siteIndexingData) throws InterruptedException {
+        lemmaRepository.upsertFrequency(site, frequencyDelta);
+
+        List<String> newLemmas = new ArrayList<>();
+        for (String lemma: frequencyDelta.keySet()) {
+            if (bundleCheckLemma(site, lemma, siteIndexingData).getId() == null) {
+                newLemmas.add(lemma);
             }
-            indexRepository.saveAll(newIndexList);
+        }
+
+        Map<String, Integer> lemmaIds = lemmaRepository.findIdsByLemmas(site, newLemmas);
+        for (String lemma: newLemmas) {
+            siteIndexingData.getLemmaMap().get(lemma).setId(lemmaIds.get(lemma));
         }
     }
 }
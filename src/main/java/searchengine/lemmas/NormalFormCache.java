@@ -0,0 +1,146 @@
+package searchengine.lemmas;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.apache.lucene.morphology.LuceneMorphology;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import searchengine.config.CrawlerConfig;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Кеш нормальных форм слов перед словарем морфологии. Для слова хранится его первая нормальная форма и признак
+ * служебной части речи, поэтому повторно встреченное слово не требует ни поиска нормальных форм, ни разбора
+ * морфологической информации. Частота слов в текстах сильно неравномерна, и небольшой кеш покрывает большую часть
+ * слов страниц. Кеш разбит на сегменты со своими блокировками, чтобы потоки лемматизации не ждали друг друга;
+ * в каждом сегменте при переполнении удаляется слово, к которому дольше всех не обращались.
+ */
+@Component
+public class NormalFormCache {
+    private static final int SHARD_COUNT = 16;
+    private final LuceneMorphology luceneMorph;
+    private final int maxSize;
+    private final List<Map<String, WordForm>> shards;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    @Autowired
+    public NormalFormCache(LuceneMorphology luceneMorph, CrawlerConfig crawlerConfig) {
+        this(luceneMorph, crawlerConfig.getNormalFormCacheSize() == null ? 100000
+                : crawlerConfig.getNormalFormCacheSize());
+    }
+
+    public NormalFormCache(LuceneMorphology luceneMorph, int maxSize) {
+        this.luceneMorph = luceneMorph;
+        this.maxSize = Math.max(0, maxSize);
+        this.shards = new ArrayList<>(SHARD_COUNT);
+        int shardSize = Math.max(1, this.maxSize / SHARD_COUNT);
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            shards.add(new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, WordForm> eldest) {
+                    return size() > shardSize;
+                }
+            });
+        }
+    }
+
+    /**
+     * Метод возвращает нормальную форму слова и признак служебной части речи
+     *
+     * @param word слово в нижнем регистре
+     * @return нормальная форма слова
+     */
+    public WordForm getWordForm(String word) {
+        if (maxSize == 0) {
+            missCount.increment();
+            return createWordForm(word);
+        }
+
+        Map<String, WordForm> shard = shards.get((word.hashCode() & 0x7fffffff) % SHARD_COUNT);
+        synchronized (shard) {
+            WordForm wordForm = shard.get(word);
+            if (wordForm != null) {
+                hitCount.increment();
+                return wordForm;
+            }
+        }
+
+        missCount.increment();
+        WordForm wordForm = createWordForm(word);
+        synchronized (shard) {
+            shard.put(word, wordForm);
+        }
+        return wordForm;
+    }
+
+    /**
+     * Метод проверяет не является ли слово служебной частью речи
+     *
+     * @param normalForm проверяемое слово в его нормальной форме
+     * @return true если это служебная часть речи, в проитивном случае false
+     */
+    public boolean isServicePartSpeech(String normalForm) {
+        String firstValue = luceneMorph.getMorphInfo(normalForm).get(0);
+
+        return firstValue.contains("СОЮЗ") || firstValue.contains("ПРЕДЛ") || firstValue.contains("МЕЖД")
+                || firstValue.contains("ЧАСТ") || firstValue.contains("ПРЕДК");
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map<String, WordForm> shard: shards) {
+            synchronized (shard) {
+                size += shard.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Метод возвращает долю обращений, для которых слово уже было в кеше
+     *
+     * @return доля попаданий от 0 до 1
+     */
+    public double getHitRate() {
+        long hits = hitCount.sum();
+        long total = hits + missCount.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public void clear() {
+        for (Map<String, WordForm> shard: shards) {
+            synchronized (shard) {
+                shard.clear();
+            }
+        }
+        hitCount.reset();
+        missCount.reset();
+    }
+
+    private WordForm createWordForm(String word) {
+        List<String> normalForms = luceneMorph.getNormalForms(word);
+        String normalForm = normalForms.get(0);
+        return new WordForm(normalForm, isServicePartSpeech(normalForm));
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class WordForm {
+        private final String normalForm;
+        private final boolean service;
+    }
+}
@@ -0,0 +1,79 @@
+package searchengine.lemmas;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Разбиение текста на русские слова за один проход по символам. Словом считается непрерывная последовательность
+ * букв кириллицы, все остальные символы - разделители. Буквы приводятся к нижнему регистру при чтении, поэтому
+ * копии всего текста не создаются: на каждое слово выделяется только строка самого слова.
+ */
+public final class WordTokenizer {
+    private static final char CAPITAL_YO = 'Ё';
+    private static final char SMALL_YO = 'ё';
+
+    private WordTokenizer() {
+    }
+
+    /**
+     * Метод передает обработчику слова текста в порядке их следования
+     *
+     * @param text текст
+     * @param action обработчик слова в нижнем регистре
+     */
+    public static void forEachWord(CharSequence text, Consumer<String> action) {
+        if (text == null) {
+            return;
+        }
+
+        char[] word = new char[32];
+        int length = 0;
+
+        for (int i = 0, textLength = text.length(); i < textLength; i++) {
+            char letter = toLowerCyrillic(text.charAt(i));
+            if (letter != 0) {
+                if (length == word.length) {
+                    word = Arrays.copyOf(word, length * 2);
+                }
+                word[length++] = letter;
+            } else if (length > 0) {
+                action.accept(new String(word, 0, length));
+                length = 0;
+            }
+        }
+
+        if (length > 0) {
+            action.accept(new String(word, 0, length));
+        }
+    }
+
+    /**
+     * Метод разбивает текст на слова
+     *
+     * @param text текст
+     * @return слова текста в нижнем регистре
+     */
+    public static List<String> getWords(CharSequence text) {
+        List<String> result = new ArrayList<>();
+        forEachWord(text, result::add);
+        return result;
+    }
+
+    /**
+     * Метод приводит букву кириллицы к нижнему регистру
+     *
+     * @param letter символ текста
+     * @return строчная буква или 0, если символ не является русской буквой
+     */
+    static char toLowerCyrillic(char letter) {
+        if (letter >= 'а' && letter <= 'я' || letter == SMALL_YO) {
+            return letter;
+        }
+        if (letter >= 'А' && letter <= 'Я') {
+            return (char) (letter + ('а' - 'А'));
+        }
+        return letter == CAPITAL_YO ? SMALL_YO : 0;
+    }
+}
@@ -0,0 +1,114 @@
+package searchengine.model;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Прозрачное сжатие содержимого страниц. Строка хранится в столбце BLOB в виде заголовка (сигнатура и длина строки
+ * в байтах UTF-8) и сжатых алгоритмом deflate байтов. Строки, которые при сжатии не уменьшаются, хранятся как есть
+ * в UTF-8. Значения без сигнатуры читаются как UTF-8, поэтому строки, записанные до включения сжатия, читаются
+ * без преобразования БД. Сигнатура начинается с управляющего символа, с которого не начинается ни html, ни текст.
+ */
+@Converter
+public class CompressedStringConverter implements AttributeConverter<String, byte[]> {
+    private static final byte[] MAGIC = {0x1F, 'P', 'C', 1};
+    private static final int HEADER_LENGTH = MAGIC.length + Integer.BYTES;
+    private static final int COMPRESSION_LEVEL = 6;
+
+    @Override
+    public byte[] convertToDatabaseColumn(String value) {
+        return value == null ? null : compress(value);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] value) {
+        return value == null ? null : decompress(value);
+    }
+
+    /**
+     * Метод сжимает строку
+     *
+     * @param value строка
+     * @return сжатые байты с заголовком или байты UTF-8, если сжатие не уменьшает размер
+     */
+    public static byte[] compress(String value) {
+        byte[] source = value.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(COMPRESSION_LEVEL);
+        try {
+            deflater.setInput(source);
+            deflater.finish();
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream(source.length / 4 + HEADER_LENGTH);
+            output.write(MAGIC, 0, MAGIC.length);
+            output.write(ByteBuffer.allocate(Integer.BYTES).putInt(source.length).array(), 0, Integer.BYTES);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                output.write(buffer, 0, deflater.deflate(buffer));
+                if (output.size() >= source.length && !isCompressed(source)) {
+                    return source;
+                }
+            }
+
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Метод восстанавливает строку из сжатых байтов или из байтов UTF-8 без заголовка
+     *
+     * @param value байты из БД
+     * @return строка
+     */
+    public static String decompress(byte[] value) {
+        if (!isCompressed(value)) {
+            return new String(value, StandardCharsets.UTF_8);
+        }
+
+        int length = ByteBuffer.wrap(value, MAGIC.length, Integer.BYTES).getInt();
+        byte[] result = new byte[length];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(value, HEADER_LENGTH, value.length - HEADER_LENGTH);
+            int position = 0;
+            while (position < length && !inflater.finished()) {
+                int count = inflater.inflate(result, position, length - position);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                position += count;
+            }
+
+            if (position != length) {
+                throw new IllegalStateException("Compressed page content is truncated: " + position + " of "
+                        + length + " bytes");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Compressed page content is corrupted", e);
+        } finally {
+            inflater.end();
+        }
+
+        return new String(result, StandardCharsets.UTF_8);
+    }
+
+    public static boolean isCompressed(byte[] value) {
+        if (value.length < HEADER_LENGTH) {
+            return false;
+        }
+
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (value[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
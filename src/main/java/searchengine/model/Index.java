@@ -9,7 +9,7 @@ import javax.persistence.*;
 @Entity
 @Setter
 @Getter
-@Table(name = "word_index")
+@Table(name = "word_index", indexes = @javax.persistence.Index(name = "word_index_lemma_page", columnList = "lemma_id, page_id"))
 public class Index {
 
     @Id
@@ -17,7 +17,7 @@ public class Index {
     @Column(name = "id", nullable = false)
     private Integer id;
 
-    @ManyToOne(cascade = CascadeType.MERGE, fetch = FetchType.EAGER)
+    @ManyToOne(cascade = CascadeType.MERGE, fetch = FetchType.LAZY)
     @JoinColumn(name = "page_id")
     private Page pageId;
 
@@ -9,7 +9,7 @@ import javax.persistence.*;
 import java.util.List;
 
 @Entity
-@Table(name = "lemma")
+@Table(name = "lemma", uniqueConstraints = @UniqueConstraint(name = "lemma_site_lemma", columnNames = {"site_id", "lemma"}))
 @Setter
 @Getter
 public class Lemma {
@@ -22,7 +22,7 @@ public class Lemma {
     @JoinColumn(name = "site_id")
     private Site siteId;
 
-    @Column(columnDefinition = "VARCHAR(255)", nullable = false)
+    @Column(columnDefinition = "VARCHAR(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin", nullable = false)
     private String lemma;
 
     @Column(nullable = false)
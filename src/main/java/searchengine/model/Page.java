@@ -6,10 +6,11 @@ import org.hibernate.annotations.Cascade;
 
 import javax.persistence.*;
 import javax.persistence.Index;
+import java.util.Objects;
 
 @Entity
 @Table(name = "page",
-        indexes = {@Index(name = "Page_table_path_ind",  columnList="path", unique = true)})
+        indexes = {@Index(name = "Page_table_path_ind",  columnList="site_id, path", unique = true)})
 @Setter
 @Getter
 public class Page {
@@ -28,8 +29,21 @@ public class Page {
     @Column(name = "code", nullable = false)
     private int code;
 
-    @Column(name = "content", nullable = false, columnDefinition = "MEDIUMTEXT")
-    private String content;
+    @Column(name = "title", columnDefinition = "TEXT")
+    private String title;
+
+    @Column(name = "etag")
+    private String etag;
+
+    @Column(name = "last_modified", length = 64)
+    private String lastModified;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
+    @JoinColumn(name = "content_id")
+    private PageBody body;
 
     public Page() {}
 
@@ -37,13 +51,13 @@ public class Page {
         this.siteId = siteId;
         this.path = path;
         this.code = code;
-        this.content = content;
+        setContent(content);
     }
 
     public Page(String path, int code, String content) {
         this.path = path;
         this.code = code;
-        this.content = content;
+        setContent(content);
     }
 
     public Page(Integer id, int code, String path) {
@@ -52,6 +66,32 @@ public class Page {
         this.code = code;
     }
 
+    /**
+     * Методы доступа к содержимому страницы. У страницы, загруженной из БД, содержимое читается из таблицы
+     * page_content только при первом обращении
+     */
+    public String getContent() {
+        return body == null ? null : body.getContent();
+    }
+
+    public void setContent(String content) {
+        getOrCreateBody().setContent(content);
+    }
+
+    public String getText() {
+        return body == null ? null : body.getText();
+    }
+
+    public void setText(String text) {
+        getOrCreateBody().setText(text);
+    }
+
+    private PageBody getOrCreateBody() {
+        if (body == null) {
+            body = new PageBody();
+        }
+        return body;
+    }
 
     @Override
     public boolean equals(Object o) {
@@ -71,9 +111,6 @@ public class Page {
 
         boolean code = this.code == other.code;
 
-        boolean content = (this.content == null && other.content == null)
-                || (this.content != null && this.content.equals(other.content));
-
-        return id && siteId && path && code && content;
+        return id && siteId && path && code && Objects.equals(getContent(), other.getContent());
     }
 }
\ No newline at end of file
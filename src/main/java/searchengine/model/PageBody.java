@@ -0,0 +1,37 @@
+package searchengine.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.*;
+
+/**
+ * Содержимое страницы: исходный html и извлеченный из него видимый текст. Хранится в отдельной таблице и загружается
+ * только по обращению к нему, поэтому выборки страниц при индексации и поиске не тянут в память html. Html и текст
+ * хранятся сжатыми, см. {@link CompressedStringConverter}.
+ */
+@Entity
+@Table(name = "page_content")
+@Setter
+@Getter
+public class PageBody {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Integer id;
+
+    @Convert(converter = CompressedStringConverter.class)
+    @Column(name = "content", nullable = false, columnDefinition = "MEDIUMBLOB")
+    private String content;
+
+    @Convert(converter = CompressedStringConverter.class)
+    @Column(name = "text", columnDefinition = "MEDIUMBLOB")
+    private String text;
+
+    public PageBody() {}
+
+    public PageBody(String content, String text) {
+        this.content = content;
+        this.text = text;
+    }
+}
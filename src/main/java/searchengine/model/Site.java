@@ -32,6 +32,13 @@ public class Site {
     @Column(columnDefinition = "VARCHAR(255)", nullable = false)
     private String name;
 
+    /**
+     * Признак текущего поколения индекса сайта. Поиск идет только по активным сайтам, а полная переиндексация
+     * пишет данные в новую, неактивную запись сайта с тем же url, которая становится активной после окончания обхода
+     */
+    @Column(name = "active", columnDefinition = "BOOLEAN DEFAULT TRUE", nullable = false)
+    private Boolean active = true;
+
     public Site() {}
 
     public Site(SiteStatus status, Date statusTime, String lastError, String url, String name) {
@@ -0,0 +1,134 @@
+package searchengine.parser;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+import org.springframework.web.util.UriComponents;
+import searchengine.utils.RandomUserAgent;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Планировщик обращений к хостам. Для каждого хоста хранится собственная задержка между запросами и время, раньше
+ * которого следующий запрос к нему выполнять нельзя. Потоки, обращающиеся к разным хостам, друг друга не ждут, поэтому
+ * медленный сайт не тормозит обход остальных. Задержка хоста не бывает меньше Crawl-delay из его robots.txt.
+ */
+@Slf4j
+public class HostScheduler {
+    private final ConcurrentHashMap<String, HostSlot> slots = new ConcurrentHashMap<>();
+    private final long defaultDelay;
+
+    public HostScheduler(long defaultDelay) {
+        this.defaultDelay = defaultDelay;
+    }
+
+    /**
+     * Метод резервирует для текущего потока ближайшее свободное окно хоста и ожидает его наступления
+     *
+     * @param url ссылка, к которой будет выполнен запрос
+     */
+    public void acquire(UriComponents url) throws InterruptedException {
+        HostSlot slot = getSlot(url);
+        long waitTime = slot.reserve();
+
+        if (waitTime > 0) {
+            Thread.sleep(waitTime);
+        }
+    }
+
+    public long getDelay(String host) {
+        HostSlot slot = slots.get(host);
+        return slot == null ? defaultDelay : slot.delay;
+    }
+
+    public void clear() {
+        slots.clear();
+    }
+
+    private HostSlot getSlot(UriComponents url) {
+        HostSlot slot = slots.computeIfAbsent(url.getHost(), host -> new HostSlot());
+        slot.init(url);
+        return slot;
+    }
+
+    /**
+     * Метод выбирает Crawl-delay в миллисекундах из robots.txt для группы правил "User-agent: *"
+     *
+     * @param robots содержимое robots.txt
+     * @return задержка в миллисекундах или 0, если она не задана
+     */
+    public static long parseCrawlDelay(String robots) {
+        boolean anyAgentGroup = false;
+        boolean readingAgents = false;
+
+        for (String line : robots.split("\n")) {
+            int commentIndex = line.indexOf('#');
+            String rule = (commentIndex >= 0 ? line.substring(0, commentIndex) : line).trim();
+            int separator = rule.indexOf(':');
+            if (separator < 0) {
+                continue;
+            }
+
+            String key = rule.substring(0, separator).trim().toLowerCase(Locale.ROOT);
+            String value = rule.substring(separator + 1).trim();
+
+            if (key.equals("user-agent")) {
+                anyAgentGroup = readingAgents && anyAgentGroup || value.equals("*");
+                readingAgents = true;
+                continue;
+            }
+
+            readingAgents = false;
+            if (anyAgentGroup && key.equals("crawl-delay")) {
+                try {
+                    return (long) (Double.parseDouble(value) * 1000);
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+
+        return 0;
+    }
+
+    private class HostSlot {
+        private volatile long delay = defaultDelay;
+        private long nextAllowedTime = 0;
+        private boolean initialized = false;
+
+        /**
+         * При первом обращении к хосту загружает его robots.txt. Остальные потоки этого хоста ждут окончания загрузки.
+         */
+        private synchronized void init(UriComponents url) {
+            if (initialized) {
+                return;
+            }
+
+            initialized = true;
+            String robotsUrl = url.getScheme() + "://" + url.getHost() + "/robots.txt";
+            try {
+                Connection.Response response = Jsoup.connect(robotsUrl)
+                        .userAgent(RandomUserAgent.getRandomUserAgent())
+                        .ignoreContentType(true)
+                        .ignoreHttpErrors(true)
+                        .timeout(10000)
+                        .execute();
+
+                if (response.statusCode() == 200) {
+                    delay = Math.max(delay, parseCrawlDelay(response.body()));
+                }
+            } catch (IOException e) {
+                log.info("robots.txt: " + robotsUrl + ", " + e.getMessage());
+            }
+        }
+
+        private synchronized long reserve() {
+            long now = System.currentTimeMillis();
+            long start = Math.max(now, nextAllowedTime);
+            nextAllowedTime = start + delay;
+            return start - now;
+        }
+    }
+}
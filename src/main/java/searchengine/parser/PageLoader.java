@@ -1,102 +1,68 @@
 package searchengine.parser;
 
 import lombok.Data;
-import lombok.Getter;
 import lombok.RequiredArgsConstructor;
-import lombok.Setter;
-import org.springframework.beans.factory.annotation.Autowired;
+import lombok.extern.slf4j.Slf4j;
 import searchengine.model.Site;
-import searchengine.parserData.SiteIndexingData;
+import searchengine.parserData.PageLoaderInfo;
+import searchengine.parserData.SiteCrawlContext;
 import searchengine.utils.IndexingUtils;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.stream.Collectors;
-import static searchengine.parser.ParserWrapper.*;
+import java.util.concurrent.TimeUnit;
 
 @Data
+@Slf4j
 @RequiredArgsConstructor
 public class PageLoader extends Thread {
-    private ParserWrapper parserWrapper;
+    private SiteCrawlContext context;
     private Site site;
-    private Set<String> linkSet = new HashSet<>();
-    private final int limitPage = 200;
-    private final int optimalQuantity = 50;
-    private SiteIndexingData siteIndexingData;
+    private List<PageLoaderInfo> pageList = new ArrayList<>();
+    private final int limitPage;
+    private final long pollTimeout = 1000;
 
-    public PageLoader(ParserWrapper parserWrapper, Site site) {
-        this.parserWrapper = parserWrapper;
-        this.site = site;
+    public PageLoader(SiteCrawlContext context, int limitPage) {
+        this.context = context;
+        this.site = context.getSite();
+        this.limitPage = limitPage;
     }
 
     /**
-     * Метод запускает индексацию списка выбранных страниц при их достаточном количестве. В противном случае уменьшает
-     * время ожидания для потоков, занимающихся скрапингом. Увеличение/уменьшение времени ожидания необходимо для
-     * регулировки использования оперативной памяти. Если объектов накапливается больше лимита, значит загрузчик
-     * страниц не успевает их загружать, из-за чего объекты будут копиться в памяти.
+     * Метод забирает из очереди загруженные страницы пачками не больше limitPage и запускает их индексацию. Очередь
+     * ограничена, поэтому если загрузчик не успевает сохранять страницы, потоки парсера ждут, а не копят их в памяти.
+     * Загрузчик завершает работу, когда обход сайта окончен и очередь страниц пуста.
      */
     @Override
     public void run() {
         while(true) {
             try {
-                if (pageLoaderMap.size() == 0) {
-                    adjustSleepTime(0);
-                    Thread.sleep(5000);
+                PageLoaderInfo first = context.getPageQueue().poll(pollTimeout, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (context.getFrontier().isComplete()) {
+                        return;
+                    }
                     continue;
                 }
 
-                updateLinkSet();
-                IndexingUtils.addLemmas(site, linkSet);
-                clearLinksDataMap();
+                pageList.add(first);
+                context.getPageQueue().drainTo(pageList, limitPage - 1);
+                IndexingUtils.addLemmas(context, pageList);
             } catch (IOException e) {
                 e.printStackTrace();
             } catch (InterruptedException e) {
-                e.printStackTrace();
+                log.info("PageLoader interrupted: " + site.getName());
                 return;
             } finally {
-                clearLinksDataMap();
+                clearPageList();
             }
         }
     }
 
     /**
-     * Метод забирает страницы для индексации. Если страниц больше заданного лимита, то он повышает время ожидания для
-     * потоков, занимающихся скрапингом.
-     */
-    private void updateLinkSet() {
-        linkSet = pageLoaderMap.entrySet().stream()
-                .map(Map.Entry::getKey)
-                .limit(limitPage)
-                .collect(Collectors.toSet());
-
-        adjustSleepTime(linkSet.size());
-
-        for (String item : linkSet) {
-            pageLoaderMap.remove(item);
-        }
-    }
-
-    /**
-     * Метод корректирует время сна потоков парсера. Если количество найденных ссылок равно лимиту - время сна
-     * увеличивается. Если количество ссылок меньше оптимального - время сна уменьшается. Время сна может уменьшаться
-     * пока не достигнет своей нижней границы, заданной в ParserWrapper.
-     */
-    private void adjustSleepTime(int count) {
-        if (count == limitPage) {
-            parserSleepTime += 300;
-        }
-
-        if (count < optimalQuantity) {
-            parserSleepTime = parserSleepTime - 100 > minWaitingTime ? parserSleepTime - 100 : parserSleepTime;
-        }
-    }
-
-
-    /**
-     * Метод очищает ссылки и связанные с ними данные после завершения итерации лемматизации.
+     * Метод очищает пачку страниц после завершения итерации лемматизации.
      */
-    private void clearLinksDataMap() {
-        linkSet.clear();
-        siteIndexingData.clear();
+    private void clearPageList() {
+        pageList.clear();
     }
 }
@@ -5,72 +5,81 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.util.UriComponents;
 import org.springframework.web.util.UriComponentsBuilder;
-import searchengine.model.Site;
+import searchengine.parserData.SiteCrawlContext;
 import searchengine.utils.IndexingUtils;
 
-import java.io.IOException;
-import java.util.*;
-
-import static searchengine.parser.ParserWrapper.linksMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Setter
 @Getter
 @Slf4j
 public class Parser implements Runnable {
-    private searchengine.model.Site site;
-    private Map<String, Integer> partMap;
-    public String siteHost;
+    private List<SiteCrawlContext> contexts;
+    private int nextContext = 0;
+    private final long pollTimeout = 100;
 
-    public Parser(Site site, Map<String, Integer> partMap) {
-        this.site = site;
-        this.partMap = partMap;
-        siteHost = UriComponentsBuilder.fromUriString(site.getUrl()).build().getHost();
+    public Parser(List<SiteCrawlContext> contexts) {
+        this.contexts = contexts;
     }
 
     /**
-     * Метод будет запускать парсинг страниц пока есть непроверенные страницы.
+     * Метод будет запускать парсинг страниц, пока обход хотя бы одного сайта не завершен. Ссылки берутся по одной из
+     * очередей сайтов по кругу, поэтому все сайты обходятся одновременно.
      */
     @Override
     public void run() {
         try {
-            while (linksMap.values().contains(0)) {
+            while (hasActiveSites()) {
                 if (Thread.currentThread().isInterrupted())
                     throw new InterruptedException();
 
-                partMap.putAll(IndexingUtils.resetPartMap());
-                parseBundlePages();
+                if (!parseNextPage()) {
+                    Thread.sleep(pollTimeout);
+                }
             }
-            Thread.currentThread().interrupt();
-        } catch (IOException e) {
-            e.printStackTrace();
         } catch (InterruptedException e) {
-            e.printStackTrace();
-        } finally {
-            clearLinksPartMap();
+            log.info("Parser interrupted: " + Thread.currentThread().getName());
         }
     }
 
     /**
-     * Метод запускает парсинг для выбранной пачки страниц.
+     * Метод берет ссылку из очереди следующего по кругу сайта, в очереди которого есть ссылки
+     *
+     * @return true, если страница была обработана, false - если все очереди пусты
      */
-    private void parseBundlePages() throws IOException, InterruptedException {
-        if (Thread.currentThread().isInterrupted())
-            throw new InterruptedException();
-
-        for (String item: partMap.keySet()) {
-            if (Thread.currentThread().isInterrupted())
-                throw new InterruptedException();
+    private boolean parseNextPage() throws InterruptedException {
+        for (int i = 0; i < contexts.size(); i++) {
+            SiteCrawlContext context = contexts.get(nextContext);
+            nextContext = (nextContext + 1) % contexts.size();
+            if (context.isFinished()) {
+                continue;
+            }
 
-            UriComponents baseURL = UriComponentsBuilder.fromUriString(item).build();
-            IndexingUtils.updateMapBaseLinks(baseURL, site);
+            String item = context.getFrontier().poll(0, TimeUnit.MILLISECONDS);
+            if (item != null) {
+                parsePage(item, context);
+                return true;
+            }
         }
-        clearLinksPartMap();
+
+        return false;
     }
 
     /**
-     * Метод очищает пачку ссылок после завершения/прерывания парсинга.
+     * Метод запускает парсинг выбранной страницы. Ссылка отмечается обработанной только после того, как найденные на
+     * странице ссылки добавлены в очередь.
      */
-    public void clearLinksPartMap() {
-        partMap.clear();
+    private void parsePage(String item, SiteCrawlContext context) throws InterruptedException {
+        try {
+            UriComponents baseURL = UriComponentsBuilder.fromUriString(item).build();
+            IndexingUtils.updateMapBaseLinks(baseURL, context);
+        } finally {
+            context.getFrontier().complete();
+        }
+    }
+
+    private boolean hasActiveSites() {
+        return contexts.stream().anyMatch(context -> !context.isFinished() && !context.getFrontier().isComplete());
     }
 }
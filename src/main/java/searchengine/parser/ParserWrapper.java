@@ -5,125 +5,224 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.util.UriComponents;
 import org.springframework.web.util.UriComponentsBuilder;
+import searchengine.config.CrawlerConfig;
 import searchengine.config.Site;
 import searchengine.config.SitesList;
-import searchengine.model.Lemma;
 import searchengine.model.SiteStatus;
-import searchengine.parserData.PageLoaderInfo;
-import searchengine.parserData.SiteIndexingData;
+import searchengine.parserData.SiteCrawlContext;
 import searchengine.utils.IndexingUtils;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import static searchengine.utils.IndexingUtils.getDomain;
-import static searchengine.utils.IndexingUtils.updateMapBaseLinks;
 
 @Setter
 @Slf4j
 @RequiredArgsConstructor
 public class ParserWrapper extends Thread {
     private SitesList sitesList;
-    private searchengine.model.Site currentSite;
-    public static volatile ConcurrentHashMap<String, Integer> linksMap = new ConcurrentHashMap<>();
-    public static volatile ConcurrentHashMap<String, Integer> pageLoaderMap = new ConcurrentHashMap<>();
-    public static volatile ConcurrentHashMap<String, PageLoaderInfo> pageLoaderInfoMap = new ConcurrentHashMap<>();
+    private CrawlerConfig crawlerConfig;
+    private boolean incremental = false;
+    private final List<SiteCrawlContext> contexts = new CopyOnWriteArrayList<>();
     public static Integer numberParserThreads;
     public static Integer pageLoaderThreadCount;
-    public static volatile String domain;
+    private int pageQueueCapacity = 400;
+    private int pageBatchSize = 200;
     private ExecutorService service = null;
-    private PageLoader pageLoader;
     private final Long timeLimit = (long) (60 * 40 * 1000);
     private final int sleepTime = 10000;
-    public static volatile Integer phaseItem = 0;
-    public static volatile int divider = 0;
-    public static volatile int parserSleepTime = 400;
-    public static final int minWaitingTime = 200;
+    public static final int parserSleepTime = 400;
+    public static final HostScheduler hostScheduler = new HostScheduler(parserSleepTime);
 
     /**
-     * Метод запускает скрапинг сайтов по очереди. Сайты берутся из конфига. Если время обработки сайта превышает лимит,
-     * то для него процесс будет остановлен, и парсер перейдет к следующему сайту. Лимит времени внедрен для банальной
-     * экономии моего личного времени. Например, с Life.ru за ~20 минут записывается в БД
-     * 6-7 тыс. страниц. Для презентации проекта этих данных вполне хватит.
+     * Метод запускает скрапинг всех сайтов из конфига одновременно. У каждого сайта свой контекст обхода, а потоки
+     * парсера общие и по очереди берут ссылки разных сайтов. Сайт, обход которого завершен, сразу получает статус
+     * INDEXED, и поиск переключается на его новое поколение. Если время индексации превышает лимит, то процесс будет
+     * остановлен для всех незавершенных сайтов, а их незавершенные новые поколения не заменят прежние.
+     * Лимит времени внедрен для банальной экономии моего личного времени. Например, с Life.ru за ~20 минут
+     * записывается в БД 6-7 тыс. страниц. Для презентации проекта этих данных вполне хватит.
      * */
     @Override
     public void run() {
         setThreadCount();
+        setPipelineSize();
         try {
+            IndexingUtils.deleteInactiveSites();
             for (Site item: sitesList.getSites()) {
-                currentSite = IndexingUtils.addSite(new searchengine.model.Site(SiteStatus.INDEXING, new Date(), null, item.getUrl(), item.getName()));
-                startPageLoader(currentSite);
-                UriComponents baseURL = UriComponentsBuilder.fromUriString(item.getUrl()).build();
-                domain = getDomain(baseURL.getHost());
-                linksMap.put(baseURL.toString(), 1);
-                updateMapBaseLinks(baseURL, currentSite);
-                service = Executors.newFixedThreadPool(numberParserThreads);
-                for (int i = 0; i <= numberParserThreads; i++) {
-                    Parser parser = new Parser(currentSite, new HashMap<>());
-                    service.submit(parser);
-                }
-
-                Date begin = new Date();
-                service.shutdown();
-                while (!IndexingUtils.exceedingTimeLimit(begin, timeLimit) && !service.isTerminated()) {
-                    if (!pageLoader.isAlive())
-                        startPageLoader(currentSite);
+                contexts.add(createContext(item));
+            }
 
-                    Thread.sleep(sleepTime);
-                }
+            service = Executors.newFixedThreadPool(numberParserThreads);
+            for (int i = 0; i < numberParserThreads; i++) {
+                service.submit(new Parser(contexts));
+            }
+            service.shutdown();
 
-                stopIndexing(false);
-                IndexingUtils.changeSiteStatus(currentSite.getName(), SiteStatus.INDEXED, "");
+            Date begin = new Date();
+            while (!IndexingUtils.exceedingTimeLimit(begin, timeLimit) && !allSitesFinished()) {
+                checkSites();
+                Thread.sleep(sleepTime);
             }
 
+            stopIndexing(false);
             log.info("Indexing is over");
         } catch (Exception e) {
             log.error("ParserWrapper: " + e.getMessage());
         }
     }
 
-    public void stopIndexing(boolean forcedStop) throws InterruptedException {
-        while(!pageLoader.isInterrupted()) {
-            pageLoader.interrupt();
-            Thread.sleep(100);
+    /**
+     * Метод создает контекст обхода сайта, запускает для него загрузчик страниц и ставит в очередь главную страницу.
+     * При инкрементальном обходе уже проиндексированный сайт не пересоздается: его страницы остаются доступны для
+     * поиска, а в контекст загружаются их валидаторы и хеши
+     */
+    private SiteCrawlContext createContext(Site item) throws InterruptedException {
+        searchengine.model.Site site = incremental ? IndexingUtils.findSite(item.getUrl()) : null;
+        boolean knownSite = site != null;
+        if (knownSite) {
+            site.setStatus(SiteStatus.INDEXING);
+            site.setStatusTime(new Date());
+            site.setLastError(null);
+            IndexingUtils.addSite(site);
+        } else {
+            site = IndexingUtils.createSiteGeneration(item.getUrl(), item.getName());
+            if (site.getActive()) {
+                IndexingUtils.startSegments(site);
+            }
+        }
+
+        UriComponents baseURL = UriComponentsBuilder.fromUriString(item.getUrl()).build();
+        SiteCrawlContext context = new SiteCrawlContext(site, getDomain(baseURL.getHost()), pageQueueCapacity);
+        if (knownSite) {
+            IndexingUtils.loadKnownPages(context);
+        }
+        for (int i = 0; i < pageLoaderThreadCount; i++) {
+            startPageLoader(context);
         }
+        context.getFrontier().add(baseURL.toString());
+        return context;
+    }
+
+    /**
+     * Метод завершает сайты, индексация которых окончена, и перезапускает упавшие загрузчики страниц
+     */
+    private void checkSites() throws InterruptedException {
+        for (SiteCrawlContext context: contexts) {
+            if (context.isFinished()) {
+                continue;
+            }
+
+            if (context.isIndexingComplete()) {
+                finishSite(context, SiteStatus.INDEXED, "");
+                continue;
+            }
 
-        while(!service.isTerminated()) {
+            for (Thread pageLoader: context.getPageLoaders()) {
+                if (!pageLoader.isAlive()) {
+                    context.getPageLoaders().remove(pageLoader);
+                    startPageLoader(context);
+                }
+            }
+        }
+    }
+
+    private boolean allSitesFinished() {
+        return contexts.stream().allMatch(context -> context.isFinished() || context.isIndexingComplete());
+    }
+
+    public void stopIndexing(boolean forcedStop) throws InterruptedException {
+        while(service != null && !service.isTerminated()) {
             service.shutdownNow();
             Thread.sleep(100);
         }
 
-        if (forcedStop) {
-            IndexingUtils.changeSiteStatus(currentSite.getName(),
-                    SiteStatus.FAILED,
-                    "Indexing is forcibly stopped.");
+        for (SiteCrawlContext context: contexts) {
+            if (context.isFinished()) {
+                continue;
+            }
+
+            if (forcedStop) {
+                finishSite(context, SiteStatus.FAILED, "Indexing is forcibly stopped.");
+            } else {
+                finishSite(context, SiteStatus.INDEXED, "");
+            }
         }
 
-        clearLinksMapData();
+        hostScheduler.clear();
     }
 
+    private void finishSite(SiteCrawlContext context, SiteStatus status, String error) throws InterruptedException {
+        boolean complete = context.isIndexingComplete();
+        for (Thread pageLoader: context.getPageLoaders()) {
+            while(!pageLoader.isInterrupted() && pageLoader.isAlive()) {
+                pageLoader.interrupt();
+                Thread.sleep(100);
+            }
+        }
+
+        context.setFinished(true);
+        if (!context.getKnownPages().isEmpty()) {
+            if (status == SiteStatus.INDEXED) {
+                IndexingUtils.removeMissingPages(context);
+            }
+            log.info("Incremental crawl of " + context.getSite().getUrl() + ": unchanged "
+                    + context.getUnchangedPages().sum() + ", changed " + context.getChangedPages().sum()
+                    + ", removed " + context.getRemovedPages().sum() + " of " + context.getKnownPages().size()
+                    + " known pages");
+        }
+        if (status == SiteStatus.INDEXED) {
+            IndexingUtils.finishIndexedSite(context.getSite(), complete);
+        } else {
+            IndexingUtils.changeSiteStatus(context.getSite(), status, error);
+        }
+        context.clear();
+    }
 
+    /**
+     * Метод определяет количество потоков парсера. Загрузка страниц почти все время ждет сеть, поэтому количество
+     * потоков задается в конфиге независимо от количества ядер. Если в конфиге оно не задано, то рассчитывается от
+     * количества ядер.
+     */
     private void setThreadCount() {
-        if (Runtime.getRuntime().availableProcessors() <= 2) {
-            pageLoaderThreadCount = 1;
+        if (crawlerConfig != null && crawlerConfig.getFetchThreads() != null && crawlerConfig.getFetchThreads() > 0) {
+            numberParserThreads = crawlerConfig.getFetchThreads();
+        } else if (Runtime.getRuntime().availableProcessors() <= 2) {
             numberParserThreads = 1;
         }  else {
-            pageLoaderThreadCount = 1;
-            numberParserThreads = (Runtime.getRuntime().availableProcessors()-1) - pageLoaderThreadCount;
+            numberParserThreads = (Runtime.getRuntime().availableProcessors()-1) - 1;
         }
     }
 
-    private void startPageLoader(searchengine.model.Site site) {
-        pageLoader = new PageLoader(this, site);
-        pageLoader.setName("PageLoader");
-        pageLoader.start();
+    /**
+     * Метод задает размеры конвейера обработки страниц: емкость очереди загруженных страниц, количество загрузчиков
+     * страниц на сайт и размер пачки, сохраняемой за одну итерацию
+     */
+    private void setPipelineSize() {
+        pageLoaderThreadCount = 1;
+        if (crawlerConfig == null) {
+            return;
+        }
+
+        if (crawlerConfig.getPageLoaderThreads() != null && crawlerConfig.getPageLoaderThreads() > 0) {
+            pageLoaderThreadCount = crawlerConfig.getPageLoaderThreads();
+        }
+
+        if (crawlerConfig.getPageQueueCapacity() != null && crawlerConfig.getPageQueueCapacity() > 0) {
+            pageQueueCapacity = crawlerConfig.getPageQueueCapacity();
+        }
+
+        if (crawlerConfig.getPageBatchSize() != null && crawlerConfig.getPageBatchSize() > 0) {
+            pageBatchSize = crawlerConfig.getPageBatchSize();
+        }
     }
 
-    private void clearLinksMapData() {
-        linksMap.clear();
-        pageLoaderMap.clear();
-        pageLoaderInfoMap.clear();
+    private void startPageLoader(SiteCrawlContext context) {
+        PageLoader pageLoader = new PageLoader(context, pageBatchSize);
+        pageLoader.setName("PageLoader-" + context.getDomain());
+        pageLoader.start();
+        context.getPageLoaders().add(pageLoader);
     }
 }
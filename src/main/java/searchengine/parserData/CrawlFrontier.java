@@ -0,0 +1,86 @@
+package searchengine.parserData;
+
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Очередь непроверенных ссылок сайта. Рядом с очередью хранится множество уже встреченных ссылок, поэтому каждая
+ * ссылка попадает в очередь только один раз. Счетчик pending учитывает ссылки, которые находятся в очереди или
+ * обрабатываются потоками. Когда он доходит до нуля, новых ссылок взяться уже неоткуда и обход сайта завершен.
+ */
+public class CrawlFrontier {
+    private final BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+    private final Set<String> seen = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final CountDownLatch completion = new CountDownLatch(1);
+
+    /**
+     * Метод добавляет ссылку в очередь, если она ранее не встречалась
+     *
+     * @param url ссылка для добавления
+     * @return true, если ссылка новая и поставлена в очередь
+     */
+    public boolean add(String url) {
+        if (isComplete() || !seen.add(url)) {
+            return false;
+        }
+
+        pending.incrementAndGet();
+        queue.offer(url);
+        return true;
+    }
+
+    /**
+     * Метод выдает следующую ссылку на проверку, ожидая ее появления не дольше указанного времени
+     *
+     * @return ссылка или null, если за время ожидания очередь осталась пустой
+     */
+    public String poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.poll(timeout, unit);
+    }
+
+    /**
+     * Метод отмечает ссылку, выданную методом poll(), как обработанную. Ссылки, найденные на странице, должны быть
+     * добавлены до вызова этого метода, иначе обход может завершиться раньше времени.
+     */
+    public void complete() {
+        if (pending.decrementAndGet() == 0) {
+            completion.countDown();
+        }
+    }
+
+    public boolean isComplete() {
+        return completion.getCount() == 0;
+    }
+
+    /**
+     * Метод ожидает завершения обхода сайта
+     *
+     * @return true, если обход завершен, false - если истекло время ожидания
+     */
+    public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+        return completion.await(timeout, unit);
+    }
+
+    public boolean isSeen(String url) {
+        return seen.contains(url);
+    }
+
+    public int getSeenCount() {
+        return seen.size();
+    }
+
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    public void clear() {
+        queue.clear();
+        seen.clear();
+    }
+}
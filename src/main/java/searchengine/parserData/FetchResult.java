@@ -0,0 +1,50 @@
+package searchengine.parserData;
+
+import lombok.Getter;
+import org.jsoup.nodes.Document;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Результат загрузки страницы одним запросом: код ответа, заголовки и разобранный документ. Документ заполняется
+ * только для успешных ответов с html-содержимым.
+ */
+@Getter
+public class FetchResult {
+    private final String url;
+    private final int statusCode;
+    private final Map<String, List<String>> headers;
+    private final Document document;
+
+    public FetchResult(String url, int statusCode, Map<String, List<String>> headers, Document document) {
+        this.url = url;
+        this.statusCode = statusCode;
+        this.headers = headers;
+        this.document = document;
+    }
+
+    public boolean isSuccessful() {
+        return statusCode >= 200 && statusCode <= 299;
+    }
+
+    public boolean isNotModified() {
+        return statusCode == 304;
+    }
+
+    /**
+     * Метод возвращает первое значение заголовка без учета регистра его имени
+     *
+     * @param name имя заголовка
+     * @return значение заголовка или null, если его нет в ответе
+     */
+    public String getHeader(String name) {
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(name) && !entry.getValue().isEmpty()) {
+                return entry.getValue().get(0);
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,22 @@
+package searchengine.parserData;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Номер поколения индекса. Увеличивается после каждой записи лемм и индексов в БД, поэтому результаты поиска,
+ * посчитанные для предыдущего поколения, считаются устаревшими.
+ */
+@Component
+public class IndexGeneration {
+    private final AtomicLong generation = new AtomicLong();
+
+    public long get() {
+        return generation.get();
+    }
+
+    public long increment() {
+        return generation.incrementAndGet();
+    }
+}
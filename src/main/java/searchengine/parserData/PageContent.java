@@ -0,0 +1,27 @@
+package searchengine.parserData;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Данные страницы, извлеченные из html за один проход по документу: разметка для хранения, заголовок, видимый текст
+ * и ссылки. Индексация и поиск работают с текстом и заголовком и не разбирают html повторно. Хеш текста и заголовка
+ * позволяет при повторном обходе отличить изменившуюся страницу от страницы, у которой поменялась только разметка.
+ */
+@Getter
+public class PageContent {
+    private final String html;
+    private final String title;
+    private final String text;
+    private final List<String> links;
+    private final String contentHash;
+
+    public PageContent(String html, String title, String text, List<String> links, String contentHash) {
+        this.html = html;
+        this.title = title;
+        this.text = text;
+        this.links = links;
+        this.contentHash = contentHash;
+    }
+}
@@ -9,10 +9,21 @@ public class PageLoaderInfo {
     private Site site;
     private String link;
     private String html;
+    private String title;
+    private String text;
+    private String contentHash;
+    private String etag;
+    private String lastModified;
+    private Integer replacedPageId;
 
-    public PageLoaderInfo(Site site, String link, String html) {
+    public PageLoaderInfo(Site site, String link, PageContent content, String etag, String lastModified) {
         this.site = site;
         this.link = link;
-        this.html = html;
+        this.html = content.getHtml();
+        this.title = content.getTitle();
+        this.text = content.getText();
+        this.contentHash = content.getContentHash();
+        this.etag = etag;
+        this.lastModified = lastModified;
     }
 }
@@ -0,0 +1,56 @@
+package searchengine.parserData;
+
+import lombok.Getter;
+import lombok.Setter;
+import searchengine.dto.page.PageFingerprint;
+import searchengine.model.Site;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Данные обхода одного сайта. У каждого сайта своя очередь ссылок, своя очередь загруженных страниц и свой домен,
+ * поэтому сайты могут индексироваться одновременно, не мешая друг другу. Очередь загруженных страниц ограничена:
+ * если загрузчики страниц не успевают сохранять их в БД, потоки парсера ждут освобождения места в очереди.
+ * При инкрементальном обходе контекст хранит данные страниц, проиндексированных при прошлом обходе.
+ */
+@Getter
+@Setter
+public class SiteCrawlContext {
+    private final Site site;
+    private final String domain;
+    private final CrawlFrontier frontier = new CrawlFrontier();
+    private final BlockingQueue<PageLoaderInfo> pageQueue;
+    private final SiteIndexingData siteIndexingData = new SiteIndexingData();
+    private final List<Thread> pageLoaders = new CopyOnWriteArrayList<>();
+    private final Map<String, PageFingerprint> knownPages = new ConcurrentHashMap<>();
+    private final LongAdder unchangedPages = new LongAdder();
+    private final LongAdder changedPages = new LongAdder();
+    private final LongAdder removedPages = new LongAdder();
+    private volatile boolean finished = false;
+
+    public SiteCrawlContext(Site site, String domain, int pageQueueCapacity) {
+        this.site = site;
+        this.domain = domain;
+        this.pageQueue = new ArrayBlockingQueue<>(pageQueueCapacity);
+    }
+
+    /**
+     * Метод проверяет, что все ссылки сайта обработаны, а загрузчики страниц сохранили все загруженные страницы
+     */
+    public boolean isIndexingComplete() {
+        return frontier.isComplete() && pageQueue.isEmpty() && pageLoaders.stream().noneMatch(Thread::isAlive);
+    }
+
+    public void clear() {
+        frontier.clear();
+        pageQueue.clear();
+        siteIndexingData.clear();
+        knownPages.clear();
+    }
+}
@@ -1,26 +1,27 @@
 package searchengine.parserData;
 
 import lombok.*;
-import org.springframework.stereotype.Component;
 import searchengine.model.Lemma;
 
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
-@Component
+/**
+ * Словарь лемм сайта на время индексации. Ключ - лемма, значение - ее экземпляр с id. Словарь загружается из БД
+ * один раз при первой пачке страниц и дальше пополняется новыми леммами. Frequency в словаре не поддерживается,
+ * ее увеличивает сама БД.
+ */
 @RequiredArgsConstructor
 @Data
 @Getter
 @Setter
 public class SiteIndexingData {
-    private Map<String, Lemma> lemmaMap = new HashMap<>();
-    private Set<String> indexDataSet = new HashSet<>();
+    private Map<String, Lemma> lemmaMap = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
 
 
     public void clear() {
         lemmaMap.clear();
-        indexDataSet.clear();
+        loaded = false;
     }
 }
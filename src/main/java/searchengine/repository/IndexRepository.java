@@ -14,10 +14,12 @@ import java.util.List;
 import java.util.Set;
 
 @Repository
-public interface IndexRepository extends JpaRepository<Index, Integer> {
+public interface IndexRepository extends JpaRepository<Index, Integer>, IndexRepositoryCustom {
 
     List<Index> findByPageId(Page page);
 
+    boolean existsByPageId(Page page);
+
     List<Index> findByLemmaId(Lemma lemma);
 
     Index findByPageIdAndLemmaId(Page page, Lemma lemma);
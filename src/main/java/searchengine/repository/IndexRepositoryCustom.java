@@ -0,0 +1,15 @@
+package searchengine.repository;
+
+import searchengine.model.Index;
+import searchengine.utils.PostingList;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+public interface IndexRepositoryCustom {
+    void bulkInsert(List<Index> indexList);
+
+    PostingList getPostingList(int lemmaId);
+
+    void readSitePostingLists(int siteId, BiConsumer<String, PostingList> consumer);
+}
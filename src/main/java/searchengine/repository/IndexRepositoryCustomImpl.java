@@ -0,0 +1,119 @@
+package searchengine.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import searchengine.model.Index;
+import searchengine.utils.PostingList;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Пакетная запись в word_index в обход Hibernate. Для Index используется GenerationType.IDENTITY, из-за чего
+ * saveAll() отправляет отдельный INSERT на каждую строку. Здесь строки пишутся многострочными INSERT по
+ * batchSize строк за запрос. Списки страниц лемм для поиска читаются сразу в массивы, без создания сущностей.
+ */
+@RequiredArgsConstructor
+public class IndexRepositoryCustomImpl implements IndexRepositoryCustom {
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize = 1000;
+
+    @Override
+    public void bulkInsert(List<Index> indexList) {
+        for (int from = 0; from < indexList.size(); from += batchSize) {
+            List<Index> part = indexList.subList(from, Math.min(from + batchSize, indexList.size()));
+            StringBuilder sql = new StringBuilder("INSERT INTO word_index (page_id, lemma_id, word_rank) VALUES ");
+            List<Object> params = new ArrayList<>(part.size() * 3);
+
+            for (int i = 0; i < part.size(); i++) {
+                Index index = part.get(i);
+                sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+                params.add(index.getPageId().getId());
+                params.add(index.getLemmaId().getId());
+                params.add(index.getWordRank());
+            }
+
+            jdbcTemplate.update(sql.toString(), params.toArray());
+        }
+    }
+
+    /**
+     * Метод выбирает одним запросом id страниц леммы и rank леммы на них в порядке возрастания id страниц
+     *
+     * @param lemmaId id леммы
+     * @return список страниц леммы
+     */
+    @Override
+    public PostingList getPostingList(int lemmaId) {
+        return jdbcTemplate.query("SELECT page_id, word_rank FROM word_index WHERE lemma_id = ? ORDER BY page_id",
+                resultSet -> {
+                    int[] pageIds = new int[64];
+                    float[] ranks = new float[64];
+                    int count = 0;
+
+                    while (resultSet.next()) {
+                        if (count == pageIds.length) {
+                            pageIds = Arrays.copyOf(pageIds, count * 2);
+                            ranks = Arrays.copyOf(ranks, count * 2);
+                        }
+                        pageIds[count] = resultSet.getInt(1);
+                        ranks[count] = resultSet.getFloat(2);
+                        count++;
+                    }
+
+                    return new PostingList(Arrays.copyOf(pageIds, count), Arrays.copyOf(ranks, count));
+                }, lemmaId);
+    }
+
+    /**
+     * Метод читает списки страниц всех лемм сайта одним потоковым запросом и передает их обработчику по одной лемме
+     *
+     * @param siteId id сайта
+     * @param consumer обработчик, получающий лемму и ее список страниц
+     */
+    @Override
+    public void readSitePostingLists(int siteId, BiConsumer<String, PostingList> consumer) {
+        String sql = "SELECT l.lemma, i.page_id, i.word_rank FROM word_index i JOIN lemma l ON l.id = i.lemma_id "
+                + "WHERE l.site_id = ? ORDER BY i.lemma_id, i.page_id";
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(Integer.MIN_VALUE);
+            statement.setInt(1, siteId);
+            return statement;
+        }, (ResultSetExtractor<Void>) resultSet -> {
+            String lemma = null;
+            int[] pageIds = new int[64];
+            float[] ranks = new float[64];
+            int count = 0;
+
+            while (resultSet.next()) {
+                String currentLemma = resultSet.getString(1);
+                if (lemma != null && !lemma.equals(currentLemma)) {
+                    consumer.accept(lemma, new PostingList(Arrays.copyOf(pageIds, count), Arrays.copyOf(ranks, count)));
+                    count = 0;
+                }
+
+                if (count == pageIds.length) {
+                    pageIds = Arrays.copyOf(pageIds, count * 2);
+                    ranks = Arrays.copyOf(ranks, count * 2);
+                }
+                lemma = currentLemma;
+                pageIds[count] = resultSet.getInt(2);
+                ranks[count] = resultSet.getFloat(3);
+                count++;
+            }
+
+            if (lemma != null) {
+                consumer.accept(lemma, new PostingList(Arrays.copyOf(pageIds, count), Arrays.copyOf(ranks, count)));
+            }
+            return null;
+        });
+    }
+}
@@ -12,7 +12,7 @@ import searchengine.model.Site;
 import java.util.List;
 
 @Repository
-public interface LemmaRepository extends JpaRepository<Lemma, Integer> {
+public interface LemmaRepository extends JpaRepository<Lemma, Integer>, LemmaRepositoryCustom {
     Lemma findByLemma(String lemma);
 
     Lemma findByLemmaAndSiteId(String lemma, Site site);
@@ -23,6 +23,11 @@ public interface LemmaRepository extends JpaRepository<Lemma, Integer> {
     @Transactional
     void deleteBySiteId(Site site);
 
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE Lemma l SET l.frequency = l.frequency - 1 WHERE l.id = ?1")
+    void decrementFrequency(Integer id);
+
     @Query(value = "SELECT l FROM Lemma l WHERE l.siteId =?1")
     List<Lemma> getListLemmaBySite(Site id);
 }
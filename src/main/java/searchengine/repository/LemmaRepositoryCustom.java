@@ -0,0 +1,16 @@
+package searchengine.repository;
+
+import searchengine.model.Lemma;
+import searchengine.model.Site;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface LemmaRepositoryCustom {
+    void bulkInsert(List<Lemma> lemmaList);
+
+    void upsertFrequency(Site site, Map<String, Integer> frequencyDelta);
+
+    Map<String, Integer> findIdsByLemmas(Site site, Collection<String> lemmas);
+}
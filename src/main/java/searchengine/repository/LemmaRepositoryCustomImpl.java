@@ -0,0 +1,119 @@
+package searchengine.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import searchengine.model.Lemma;
+import searchengine.model.Site;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Пакетная запись лемм в обход Hibernate. Новые леммы вставляются многострочными INSERT, а их id берутся из
+ * сгенерированных ключей запроса. Frequency лемм при индексации меняется через INSERT ... ON DUPLICATE KEY UPDATE:
+ * прибавление выполняет сама БД, поэтому параллельные загрузчики страниц не затирают изменения друг друга.
+ */
+@RequiredArgsConstructor
+public class LemmaRepositoryCustomImpl implements LemmaRepositoryCustom {
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize = 1000;
+
+    @Override
+    public void bulkInsert(List<Lemma> lemmaList) {
+        for (int from = 0; from < lemmaList.size(); from += batchSize) {
+            List<Lemma> part = lemmaList.subList(from, Math.min(from + batchSize, lemmaList.size()));
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                StringBuilder sql = new StringBuilder("INSERT INTO lemma (site_id, lemma, frequency) VALUES ");
+                for (int i = 0; i < part.size(); i++) {
+                    sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+                }
+
+                try (PreparedStatement statement = connection.prepareStatement(sql.toString(),
+                        Statement.RETURN_GENERATED_KEYS)) {
+                    int parameter = 1;
+                    for (Lemma lemma : part) {
+                        statement.setInt(parameter++, lemma.getSiteId().getId());
+                        statement.setString(parameter++, lemma.getLemma());
+                        statement.setInt(parameter++, lemma.getFrequency());
+                    }
+                    statement.executeUpdate();
+
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        for (Lemma lemma : part) {
+                            keys.next();
+                            lemma.setId(keys.getInt(1));
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Метод увеличивает frequency лемм сайта на переданные значения. Отсутствующие леммы создаются тем же запросом,
+     * поэтому уникальный ключ (site_id, lemma) не допускает дублей, а прибавление выполняется в БД и изменения
+     * параллельных потоков не теряются. Леммы вставляются в алфавитном порядке, чтобы потоки блокировали строки
+     * в одной последовательности и не приводили к взаимоблокировкам.
+     *
+     * @param site сайт, к которому относятся леммы
+     * @param frequencyDelta ключ является леммой, а значение - на сколько увеличить ее frequency
+     */
+    @Override
+    public void upsertFrequency(Site site, Map<String, Integer> frequencyDelta) {
+        List<String> lemmas = new ArrayList<>(frequencyDelta.keySet());
+        Collections.sort(lemmas);
+
+        for (int from = 0; from < lemmas.size(); from += batchSize) {
+            List<String> part = lemmas.subList(from, Math.min(from + batchSize, lemmas.size()));
+            StringBuilder sql = new StringBuilder("INSERT INTO lemma (site_id, lemma, frequency) VALUES ");
+            List<Object> params = new ArrayList<>(part.size() * 3);
+
+            for (int i = 0; i < part.size(); i++) {
+                sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+                params.add(site.getId());
+                params.add(part.get(i));
+                params.add(frequencyDelta.get(part.get(i)));
+            }
+            sql.append(" ON DUPLICATE KEY UPDATE frequency = frequency + VALUES(frequency)");
+
+            jdbcTemplate.update(sql.toString(), params.toArray());
+        }
+    }
+
+    /**
+     * Метод выбирает id лемм сайта
+     *
+     * @param site сайт, к которому относятся леммы
+     * @param lemmas список лемм
+     * @return ключ является леммой, а значение ее id
+     */
+    @Override
+    public Map<String, Integer> findIdsByLemmas(Site site, Collection<String> lemmas) {
+        List<String> lemmaList = new ArrayList<>(lemmas);
+        Map<String, Integer> result = new HashMap<>();
+
+        for (int from = 0; from < lemmaList.size(); from += batchSize) {
+            List<String> part = lemmaList.subList(from, Math.min(from + batchSize, lemmaList.size()));
+            String sql = "SELECT id, lemma FROM lemma WHERE site_id = ? AND lemma IN ("
+                    + String.join(", ", Collections.nCopies(part.size(), "?")) + ")";
+            List<Object> params = new ArrayList<>(part.size() + 1);
+            params.add(site.getId());
+            params.addAll(part);
+
+            jdbcTemplate.query(sql, resultSet -> {
+                result.put(resultSet.getString("lemma"), resultSet.getInt("id"));
+            }, params.toArray());
+        }
+
+        return result;
+    }
+}
@@ -5,20 +5,26 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import searchengine.dto.page.PageFingerprint;
+import searchengine.dto.page.PageSummary;
+import searchengine.dto.page.PageText;
 import searchengine.model.Page;
 import searchengine.model.Site;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
 @Repository
-public interface PageRepository extends JpaRepository<Page, Integer> {
+public interface PageRepository extends JpaRepository<Page, Integer>, PageRepositoryCustom {
     List<Page> findBySiteId_Id(int id);
 
     Page findBySiteIdAndPath(Site site, String path);
 
     Page findByPath(String path);
 
+    Page findByPathAndSiteId(String path, Site site);
+
     @Modifying
     @Transactional
     void deleteById(int id);
@@ -41,6 +47,30 @@ public interface PageRepository extends JpaRepository<Page, Integer> {
     @Query(value = "SELECT * FROM Page p WHERE p.id IN ?1", nativeQuery = true)
     List<Page> getByIdList(List<Integer> idList);
 
+    @Query(value = "SELECT new searchengine.dto.page.PageSummary(p.id, p.siteId.id, p.path, p.title) " +
+            "FROM Page p WHERE p.id IN ?1")
+    List<PageSummary> findSummariesByIdIn(Collection<Integer> idList);
+
+    @Query(value = "SELECT new searchengine.dto.page.PageFingerprint(p.id, p.path, p.etag, p.lastModified, " +
+            "p.contentHash) FROM Page p WHERE p.siteId = ?1")
+    List<PageFingerprint> findFingerprintsBySite(Site site);
+
+    @Query(value = "SELECT b.content FROM Page p JOIN p.body b WHERE p.id = ?1")
+    String findContentById(Integer id);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE Page p SET p.etag = ?2, p.lastModified = ?3 WHERE p.id = ?1")
+    void updateValidators(Integer id, String etag, String lastModified);
+
+    @Query(value = "SELECT new searchengine.dto.page.PageText(p.id, b.text) " +
+            "FROM Page p JOIN p.body b WHERE p.id IN ?1 AND b.text IS NOT NULL")
+    List<PageText> findTextsByIdIn(Collection<Integer> idList);
+
+    @Query(value = "SELECT new searchengine.dto.page.PageText(p.id, b.text, b.content) " +
+            "FROM Page p JOIN p.body b WHERE p.id IN ?1 AND b.text IS NULL")
+    List<PageText> findLegacyTextsByIdIn(Collection<Integer> idList);
+
 
 }
 
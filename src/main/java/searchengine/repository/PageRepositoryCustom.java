@@ -0,0 +1,5 @@
+package searchengine.repository;
+
+public interface PageRepositoryCustom {
+    int erasePage(int pageId);
+}
@@ -0,0 +1,40 @@
+package searchengine.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Удаление страницы в обход Hibernate. Сколько бы лемм ни было на странице, удаление выполняется постоянным числом
+ * запросов: frequency всех лемм страницы уменьшается одним UPDATE с соединением с word_index, затем одним DELETE
+ * удаляются индексы только этой страницы, а после них сама страница и ее содержимое.
+ */
+@RequiredArgsConstructor
+public class PageRepositoryCustomImpl implements PageRepositoryCustom {
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Метод удаляет страницу и ее индексы в одной транзакции, уменьшая frequency лемм страницы
+     *
+     * @param pageId id страницы
+     * @return количество удаленных индексов страницы
+     */
+    @Override
+    @Transactional
+    public int erasePage(int pageId) {
+        jdbcTemplate.update("UPDATE lemma l JOIN word_index i ON i.lemma_id = l.id "
+                + "SET l.frequency = l.frequency - 1 WHERE i.page_id = ?", pageId);
+        int deleted = jdbcTemplate.update("DELETE FROM word_index WHERE page_id = ?", pageId);
+
+        List<Integer> contentIds = jdbcTemplate.queryForList(
+                "SELECT content_id FROM page WHERE id = ? AND content_id IS NOT NULL", Integer.class, pageId);
+        jdbcTemplate.update("DELETE FROM page WHERE id = ?", pageId);
+        for (Integer contentId: contentIds) {
+            jdbcTemplate.update("DELETE FROM page_content WHERE id = ?", contentId);
+        }
+
+        return deleted;
+    }
+}
@@ -2,22 +2,41 @@ package searchengine.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import searchengine.model.Site;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface SiteRepository extends JpaRepository<Site, Integer> {
+public interface SiteRepository extends JpaRepository<Site, Integer>, SiteRepositoryCustom {
     @Modifying
     @Transactional
     Integer deleteByName(String name);
 
+    @Query(value = "SELECT s FROM Site s WHERE s.name = ?1 AND s.active = true")
     Site findByName(String name);
 
+    @Query(value = "SELECT s FROM Site s WHERE s.url = ?1 AND s.active = true")
     Site findByUrl(String url);
 
+    Site findFirstByNameOrderByIdDesc(String name);
+
+    List<Site> findAllByActiveFalse();
+
+    /**
+     * Метод одним запросом делает сайт активным поколением индекса, а прежнее поколение с тем же url - неактивным
+     *
+     * @param url url сайта
+     * @param id id нового поколения сайта
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE site SET active = (id = ?2) WHERE url = ?1", nativeQuery = true)
+    void activate(String url, Integer id);
+
     Optional<Site> findById(Integer id);
 
 }
@@ -0,0 +1,5 @@
+package searchengine.repository;
+
+public interface SiteRepositoryCustom {
+    void deleteSiteData(int siteId);
+}
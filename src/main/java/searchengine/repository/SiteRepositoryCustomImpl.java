@@ -0,0 +1,56 @@
+package searchengine.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Удаление данных поколения сайта в обход Hibernate. Строки удаляются небольшими пачками, каждая в своем запросе,
+ * поэтому удаление старого поколения большого сайта не держит долгих блокировок и не мешает поиску по новому.
+ */
+@RequiredArgsConstructor
+public class SiteRepositoryCustomImpl implements SiteRepositoryCustom {
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize = 1000;
+
+    /**
+     * Метод удаляет индексы, леммы, страницы с их содержимым и саму запись сайта
+     *
+     * @param siteId id сайта
+     */
+    @Override
+    public void deleteSiteData(int siteId) {
+        List<Integer> pageIds = jdbcTemplate.queryForList("SELECT id FROM page WHERE site_id = ?", Integer.class,
+                siteId);
+        for (int from = 0; from < pageIds.size(); from += batchSize) {
+            List<Integer> part = pageIds.subList(from, Math.min(from + batchSize, pageIds.size()));
+            jdbcTemplate.update("DELETE FROM word_index WHERE page_id IN (" + placeholders(part.size()) + ")",
+                    part.toArray());
+        }
+
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update("DELETE FROM lemma WHERE site_id = ? LIMIT " + batchSize * 10, siteId);
+        } while (deleted > 0);
+
+        for (int from = 0; from < pageIds.size(); from += batchSize) {
+            List<Integer> part = pageIds.subList(from, Math.min(from + batchSize, pageIds.size()));
+            String ids = placeholders(part.size());
+            List<Integer> contentIds = jdbcTemplate.queryForList("SELECT content_id FROM page WHERE id IN (" + ids
+                    + ") AND content_id IS NOT NULL", Integer.class, part.toArray());
+            jdbcTemplate.update("DELETE FROM page WHERE id IN (" + ids + ")", part.toArray());
+            if (!contentIds.isEmpty()) {
+                jdbcTemplate.update("DELETE FROM page_content WHERE id IN (" + placeholders(contentIds.size()) + ")",
+                        contentIds.toArray());
+            }
+        }
+
+        jdbcTemplate.update("DELETE FROM site WHERE id = ?", siteId);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
@@ -0,0 +1,39 @@
+package searchengine.segment;
+
+/**
+ * Ограничение скорости записи при слиянии сегментов, чтобы фоновое слияние не отбирало диск у индексации и поиска.
+ * Поток слияния после записи очередной порции данных засыпает, если опережает заданную скорость.
+ */
+public class MergeThrottle {
+    private final long bytesPerSecond;
+    private long startTime = System.nanoTime();
+    private long writtenBytes = 0;
+
+    public MergeThrottle(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * Метод учитывает записанные байты и при необходимости приостанавливает поток
+     *
+     * @param bytes количество записанных байтов
+     */
+    public synchronized void acquire(long bytes) throws InterruptedException {
+        if (bytesPerSecond <= 0) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        if (now - startTime > 1_000_000_000L) {
+            startTime = now;
+            writtenBytes = 0;
+        }
+
+        writtenBytes += bytes;
+        long expectedTime = writtenBytes * 1_000_000_000L / bytesPerSecond;
+        long waitTime = expectedTime - (now - startTime);
+        if (waitTime > 0) {
+            Thread.sleep(waitTime / 1_000_000L, (int) (waitTime % 1_000_000L));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package searchengine.segment;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Формат файла сегмента индекса. Файл состоит из трех частей:
+ * <ul>
+ *     <li>списки страниц лемм: для каждой леммы varint-количество страниц, затем id страниц, записанные varint-разностями
+ *     с предыдущим id, затем rank леммы на каждой странице (float);</li>
+ *     <li>словарь лемм, отсортированный по лемме: varint-длина и UTF-8 байты леммы, varint-количество страниц
+ *     и смещение списка страниц (long);</li>
+ *     <li>завершающий блок фиксированной длины: смещение словаря (long), количество лемм (int), смещение url сайта
+ *     (long) и сигнатура (int).</li>
+ * </ul>
+ * Url сайта хранится перед завершающим блоком как varint-длина и UTF-8 байты.
+ */
+final class SegmentFormat {
+    static final int MAGIC = 0x53454731;
+    static final int FOOTER_LENGTH = Long.BYTES + Integer.BYTES + Long.BYTES + Integer.BYTES;
+    static final String FILE_EXTENSION = ".seg";
+
+    private SegmentFormat() {}
+
+    static void writeVarInt(DataOutputStream output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+
+    /**
+     * Метод читает varint начиная с позиции буфера и сдвигает позицию
+     */
+    static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte item;
+        do {
+            item = buffer.get();
+            value |= (item & 0x7F) << shift;
+            shift += 7;
+        } while ((item & 0x80) != 0);
+
+        return value;
+    }
+}
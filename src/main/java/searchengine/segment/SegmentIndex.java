@@ -0,0 +1,562 @@
+package searchengine.segment;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import searchengine.config.SegmentConfig;
+import searchengine.model.Site;
+import searchengine.repository.IndexRepository;
+import searchengine.utils.PostingList;
+import searchengine.utils.PostingLists;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Локальный индекс из неизменяемых файлов-сегментов. Каждая пачка проиндексированных страниц сайта записывается
+ * отдельным небольшим сегментом, а фоновый поток сливает мелкие сегменты в крупные по ступенчатой политике
+ * {@link TieredMergePolicy}, ограничивая скорость записи. Удаленные и переиндексированные страницы отмечаются
+ * в списке удаленных страниц сайта (tombstones): при поиске они пропускаются, а при слиянии не переносятся в новый
+ * сегмент. Сегменты относятся к записи сайта, а не к его url: у нового поколения сайта, которое строится при
+ * переиндексации, свои сегменты. БД остается основным хранилищем: поиск идет через сегменты только по сайтам, обход
+ * которых начат при включенном индексе, иначе через БД. Индекс включается настройкой segment-settings.enabled.
+ */
+@Component
+@Slf4j
+public class SegmentIndex {
+    private static final String TOMBSTONE_EXTENSION = ".del";
+    private final IndexRepository indexRepository;
+    private final boolean enabled;
+    private final Path directory;
+    private final TieredMergePolicy mergePolicy;
+    private final MergeThrottle mergeThrottle;
+    private final Map<Integer, List<SegmentReader>> siteSegments = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Integer>> siteTombstones = new ConcurrentHashMap<>();
+    private final Map<Integer, String> siteUrls = new ConcurrentHashMap<>();
+    private final AtomicLong segmentNumber = new AtomicLong();
+    private final ExecutorService merger = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "SegmentMerger");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SegmentIndex(SegmentConfig segmentConfig, IndexRepository indexRepository) {
+        this.indexRepository = indexRepository;
+        this.enabled = segmentConfig.getEnabled() != null && segmentConfig.getEnabled();
+        this.directory = Paths.get(segmentConfig.getPath() == null ? "segments" : segmentConfig.getPath());
+        this.mergePolicy = new TieredMergePolicy(
+                segmentConfig.getMergeFactor() == null ? 10 : segmentConfig.getMergeFactor(),
+                segmentConfig.getMinSegmentSize() == null ? 1 << 16 : segmentConfig.getMinSegmentSize());
+        this.mergeThrottle = new MergeThrottle(
+                segmentConfig.getMergeBytesPerSecond() == null ? 0 : segmentConfig.getMergeBytesPerSecond());
+    }
+
+    /**
+     * Метод открывает сегменты и списки удаленных страниц, сохраненные при предыдущих запусках приложения
+     */
+    @PostConstruct
+    public void load() throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file: files.sorted(Comparator.comparingLong(SegmentIndex::getSegmentNumber)).toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(SegmentFormat.FILE_EXTENSION)) {
+                    openSegment(file);
+                } else if (name.endsWith(TOMBSTONE_EXTENSION)) {
+                    readTombstones(file);
+                }
+            }
+        }
+
+        for (Integer siteId: siteSegments.keySet()) {
+            scheduleMerge(siteId, false);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        merger.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean hasSegments(Site site) {
+        return enabled && site.getId() != null && siteSegments.containsKey(site.getId());
+    }
+
+    public int getSegmentCount(int siteId) {
+        return siteSegments.getOrDefault(siteId, List.of()).size();
+    }
+
+    /**
+     * Метод начинает ведение сегментов для новой записи сайта, обход которой начинается. С этого момента все пачки
+     * страниц сайта попадают в сегменты, и поиск по сайту идет через них
+     *
+     * @param site сайт, обход которого начинается
+     */
+    public void startSite(Site site) {
+        if (!enabled) {
+            return;
+        }
+
+        dropSite(site.getId());
+        siteUrls.put(site.getId(), site.getUrl());
+        siteSegments.put(site.getId(), List.of());
+    }
+
+    /**
+     * Метод возвращает количество страниц сайта, на которых встречается лемма. Удаленные страницы, еще не
+     * вычищенные слиянием, тоже учитываются, поэтому значение может быть немного больше точного
+     *
+     * @param siteId id сайта
+     * @param lemma лемма
+     * @return количество страниц по всем сегментам сайта
+     */
+    public int getFrequency(int siteId, String lemma) {
+        int frequency = 0;
+        for (SegmentReader segment: siteSegments.getOrDefault(siteId, List.of())) {
+            frequency += segment.getFrequency(lemma);
+        }
+        return frequency;
+    }
+
+    /**
+     * Метод собирает список страниц леммы из всех сегментов сайта без удаленных страниц
+     *
+     * @param siteId id сайта
+     * @param lemma лемма
+     * @return отсортированный список страниц леммы
+     */
+    public PostingList getPostingList(int siteId, String lemma) {
+        return getPostingList(siteSegments.getOrDefault(siteId, List.of()), lemma,
+                siteTombstones.getOrDefault(siteId, Set.of()));
+    }
+
+    /**
+     * Метод записывает пачку проиндексированных страниц сайта отдельным сегментом и запускает фоновую проверку
+     * необходимости слияния. Если записать сегмент не удалось, сегменты сайта удаляются и поиск по нему
+     * продолжается через БД
+     *
+     * @param site сайт
+     * @param pageLemmas ключ является id страницы, а значение - леммы страницы с их rank
+     */
+    public void flush(Site site, Map<Integer, ? extends Map<String, Integer>> pageLemmas) {
+        if (!hasSegments(site) || pageLemmas.isEmpty()) {
+            return;
+        }
+
+        TreeMap<String, List<int[]>> postings = new TreeMap<>();
+        for (Integer pageId: new TreeSet<>(pageLemmas.keySet())) {
+            for (Map.Entry<String, Integer> lemma: pageLemmas.get(pageId).entrySet()) {
+                postings.computeIfAbsent(lemma.getKey(), item -> new ArrayList<>())
+                        .add(new int[]{pageId, lemma.getValue()});
+            }
+        }
+
+        Path file = createSegmentPath(site.getId());
+        try (SegmentWriter writer = new SegmentWriter(file, site.getUrl())) {
+            for (Map.Entry<String, List<int[]>> entry: postings.entrySet()) {
+                int[] pageIds = new int[entry.getValue().size()];
+                float[] ranks = new float[pageIds.length];
+                for (int i = 0; i < pageIds.length; i++) {
+                    pageIds[i] = entry.getValue().get(i)[0];
+                    ranks[i] = entry.getValue().get(i)[1];
+                }
+                writer.addTerm(entry.getKey(), new PostingList(pageIds, ranks));
+            }
+            writer.finish();
+
+            SegmentReader segment = SegmentReader.open(file);
+            List<SegmentReader> segments = siteSegments.computeIfPresent(site.getId(),
+                    (siteId, oldSegments) -> append(oldSegments, segment));
+            if (segments == null) {
+                Files.deleteIfExists(file);
+                return;
+            }
+        } catch (IOException e) {
+            log.error("Segment of site " + site.getUrl() + " is not flushed, site is searched in DB: " + e.getMessage());
+            dropSite(site.getId());
+            return;
+        }
+
+        scheduleMerge(site.getId(), false);
+    }
+
+    /**
+     * Метод отмечает страницу удаленной. Ее записи пропускаются при поиске и не переносятся при слиянии сегментов
+     *
+     * @param site сайт страницы
+     * @param pageId id удаленной страницы
+     */
+    public void deletePage(Site site, int pageId) {
+        if (!hasSegments(site)) {
+            return;
+        }
+
+        Set<Integer> tombstones = siteTombstones.computeIfAbsent(site.getId(), id -> ConcurrentHashMap.newKeySet());
+        if (tombstones.add(pageId)) {
+            appendTombstone(site.getId(), pageId);
+        }
+    }
+
+    /**
+     * Метод сливает все сегменты сайта в один в фоновом потоке. Вызывается после завершения обхода сайта
+     *
+     * @param siteId id сайта
+     */
+    public void optimize(int siteId) {
+        scheduleMerge(siteId, true);
+    }
+
+    /**
+     * Метод ожидает окончания слияний, запланированных до его вызова. Слияния выполняются одним потоком по очереди,
+     * поэтому достаточно дождаться пустой задачи, поставленной в конец очереди
+     */
+    public void awaitMerges() throws InterruptedException {
+        if (!enabled || merger.isShutdown()) {
+            return;
+        }
+
+        try {
+            merger.submit(() -> { }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Метод строит сегмент сайта по данным из БД и заменяет им прежние сегменты сайта
+     *
+     * @param site сайт
+     */
+    public void buildSiteSegment(Site site) throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        Path file = createSegmentPath(site.getId());
+        long begin = System.currentTimeMillis();
+        try (SegmentWriter writer = new SegmentWriter(file, site.getUrl())) {
+            indexRepository.readSitePostingLists(site.getId(), (lemma, postingList) -> {
+                try {
+                    writer.addTerm(lemma, postingList);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            writer.finish();
+        } catch (IllegalStateException e) {
+            throw new IOException("Segment " + file + " is not written", e.getCause());
+        }
+
+        SegmentReader segment = SegmentReader.open(file);
+        dropSite(site.getId());
+        siteUrls.put(site.getId(), site.getUrl());
+        siteSegments.put(site.getId(), List.of(segment));
+        log.info("Segment " + file + " is written: " + segment.getTermCount() + " lemmas, "
+                + (System.currentTimeMillis() - begin) + " ms");
+    }
+
+    /**
+     * Метод удаляет сегменты сайта, после чего поиск по сайту идет через БД
+     *
+     * @param siteId id сайта
+     */
+    public void dropSite(int siteId) {
+        deleteSegments(siteSegments.remove(siteId));
+        siteTombstones.remove(siteId);
+        siteUrls.remove(siteId);
+        deleteFile(getTombstonePath(siteId));
+    }
+
+    public void clear() {
+        for (Integer siteId: new ArrayList<>(siteSegments.keySet())) {
+            dropSite(siteId);
+        }
+    }
+
+    private void scheduleMerge(int siteId, boolean mergeAll) {
+        if (!enabled || merger.isShutdown()) {
+            return;
+        }
+
+        merger.submit(() -> {
+            try {
+                mergeSegments(siteId, mergeAll);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                log.error("Segments of site " + siteUrls.get(siteId) + " are not merged: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Метод сливает сегменты сайта, пока политика слияния находит переполненные уровни. При слиянии всех
+     * сегментов сайта записи удаленных страниц исчезают из индекса полностью, и список удаленных страниц очищается
+     *
+     * @param siteId id сайта
+     * @param mergeAll слить все сегменты сайта в один
+     */
+    private void mergeSegments(int siteId, boolean mergeAll) throws IOException, InterruptedException {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<SegmentReader> segments = siteSegments.get(siteId);
+            String siteUrl = siteUrls.get(siteId);
+            if (segments == null || siteUrl == null) {
+                return;
+            }
+
+            List<SegmentReader> mergedSegments = new ArrayList<>();
+            if (mergeAll) {
+                if (segments.size() < 2 && siteTombstones.getOrDefault(siteId, Set.of()).isEmpty()) {
+                    return;
+                }
+                mergedSegments.addAll(segments);
+            } else {
+                for (int index: mergePolicy.findMerge(segments.stream().map(SegmentReader::getSize).toList())) {
+                    mergedSegments.add(segments.get(index));
+                }
+            }
+
+            if (mergedSegments.isEmpty()) {
+                return;
+            }
+
+            Set<Integer> tombstones = new HashSet<>(siteTombstones.getOrDefault(siteId, Set.of()));
+            SegmentReader merged = writeMergedSegment(siteUrl, siteId, mergedSegments, tombstones);
+            List<SegmentReader> result = siteSegments.computeIfPresent(siteId,
+                    (id, oldSegments) -> replace(oldSegments, mergedSegments, merged));
+            if (result == null) {
+                deleteFile(merged == null ? null : merged.getFile());
+                return;
+            }
+
+            deleteSegments(mergedSegments);
+            if (mergedSegments.size() == segments.size() && result.size() <= 1) {
+                Set<Integer> currentTombstones = siteTombstones.get(siteId);
+                if (currentTombstones != null) {
+                    currentTombstones.removeAll(tombstones);
+                    writeTombstones(siteId);
+                }
+            }
+
+            if (mergeAll) {
+                return;
+            }
+        }
+    }
+
+    private SegmentReader writeMergedSegment(String siteUrl, int siteId, List<SegmentReader> segments,
+                                             Set<Integer> tombstones) throws IOException, InterruptedException {
+        TreeSet<String> lemmas = new TreeSet<>();
+        for (SegmentReader segment: segments) {
+            lemmas.addAll(Arrays.asList(segment.getLemmas()));
+        }
+
+        long begin = System.currentTimeMillis();
+        Path file = createSegmentPath(siteId);
+        try (SegmentWriter writer = new SegmentWriter(file, siteUrl)) {
+            for (String lemma: lemmas) {
+                PostingList postingList = getPostingList(segments, lemma, tombstones);
+                if (postingList.size() == 0) {
+                    continue;
+                }
+
+                long writtenBytes = writer.getWrittenBytes();
+                writer.addTerm(lemma, postingList);
+                mergeThrottle.acquire(writer.getWrittenBytes() - writtenBytes);
+            }
+
+            if (writer.getWrittenBytes() == 0) {
+                return null;
+            }
+            writer.finish();
+        }
+
+        SegmentReader merged = SegmentReader.open(file);
+        log.info("Segments of site " + siteUrl + " are merged: " + segments.size() + " -> " + file.getFileName()
+                + ", " + merged.getSize() + " bytes, " + (System.currentTimeMillis() - begin) + " ms");
+        return merged;
+    }
+
+    private PostingList getPostingList(List<SegmentReader> segments, String lemma, Set<Integer> tombstones) {
+        PostingList result = new PostingList(new int[0], new float[0]);
+        for (SegmentReader segment: segments) {
+            PostingList postingList = segment.getPostingList(lemma);
+            if (postingList.size() > 0) {
+                result = result.size() == 0 ? postingList : PostingLists.merge(result, postingList);
+            }
+        }
+
+        return tombstones.isEmpty() ? result : PostingLists.remove(result, tombstones);
+    }
+
+    private List<SegmentReader> append(List<SegmentReader> segments, SegmentReader segment) {
+        List<SegmentReader> result = new ArrayList<>(segments);
+        result.add(segment);
+        return List.copyOf(result);
+    }
+
+    /**
+     * Метод заменяет слитые сегменты новым сегментом на месте первого из них, сохраняя порядок сегментов
+     */
+    private List<SegmentReader> replace(List<SegmentReader> segments, List<SegmentReader> mergedSegments,
+                                        SegmentReader merged) {
+        List<SegmentReader> result = new ArrayList<>();
+        boolean inserted = false;
+        for (SegmentReader segment: segments) {
+            if (!mergedSegments.contains(segment)) {
+                result.add(segment);
+            } else if (!inserted && merged != null) {
+                result.add(merged);
+                inserted = true;
+            }
+        }
+        return List.copyOf(result);
+    }
+
+    private Path createSegmentPath(int siteId) {
+        return directory.resolve(siteId + "-" + segmentNumber.incrementAndGet() + SegmentFormat.FILE_EXTENSION);
+    }
+
+    private Path getTombstonePath(int siteId) {
+        return directory.resolve(siteId + TOMBSTONE_EXTENSION);
+    }
+
+    private void openSegment(Path file) {
+        try {
+            SegmentReader segment = SegmentReader.open(file);
+            int siteId = getSiteId(file);
+            siteSegments.merge(siteId, List.of(segment), (oldList, newList) -> append(oldList, newList.get(0)));
+            siteUrls.put(siteId, segment.getSiteUrl());
+            segmentNumber.accumulateAndGet(getSegmentNumber(file), Math::max);
+        } catch (IOException | NumberFormatException e) {
+            log.error("Segment " + file + " is not opened: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Метод дописывает id удаленной страницы в конец файла удаленных страниц сайта, не переписывая файл целиком
+     */
+    private synchronized void appendTombstone(int siteId, int pageId) {
+        Path file = getTombstonePath(siteId);
+        if (Files.notExists(file)) {
+            writeTombstones(siteId);
+            return;
+        }
+
+        try (DataOutputStream output = new DataOutputStream(Files.newOutputStream(file, StandardOpenOption.APPEND))) {
+            output.writeInt(pageId);
+        } catch (IOException e) {
+            log.error("Tombstones of site " + siteUrls.get(siteId) + " are not saved: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Список удаленных страниц сайта хранится в файле: url сайта и id страниц до конца файла. Id новых удаленных
+     * страниц дописываются в конец, а целиком файл переписывается только после слияния, убравшего страницы из индекса
+     */
+    private synchronized void writeTombstones(int siteId) {
+        String siteUrl = siteUrls.getOrDefault(siteId, "");
+        Set<Integer> tombstones = siteTombstones.getOrDefault(siteId, Set.of());
+        Path file = getTombstonePath(siteId);
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(tempFile)))) {
+                output.writeUTF(siteUrl);
+                for (int pageId: tombstones) {
+                    output.writeInt(pageId);
+                }
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Tombstones of site " + siteUrl + " are not saved: " + e.getMessage());
+        }
+    }
+
+    private void readTombstones(Path file) {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            String siteUrl = input.readUTF();
+            Set<Integer> tombstones = ConcurrentHashMap.newKeySet();
+            while (input.available() >= Integer.BYTES) {
+                tombstones.add(input.readInt());
+            }
+            String name = file.getFileName().toString();
+            int siteId = Integer.parseInt(name.substring(0, name.length() - TOMBSTONE_EXTENSION.length()));
+            siteUrls.putIfAbsent(siteId, siteUrl);
+            siteTombstones.put(siteId, tombstones);
+        } catch (IOException | NumberFormatException e) {
+            log.error("Tombstones " + file + " are not read: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Удаление файлов сегментов. Отображение файла в память остается действительным, пока на буфер есть ссылки,
+     * поэтому уже начатые поиски дочитывают удаленный сегмент без ошибок.
+     */
+    private void deleteSegments(List<SegmentReader> segments) {
+        if (segments == null) {
+            return;
+        }
+
+        for (SegmentReader segment: segments) {
+            deleteFile(segment.getFile());
+        }
+    }
+
+    private void deleteFile(Path file) {
+        if (file == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.error("File " + file + " is not deleted: " + e.getMessage());
+        }
+    }
+
+    private static int getSiteId(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(0, name.indexOf('-')));
+    }
+
+    private static long getSegmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.endsWith(SegmentFormat.FILE_EXTENSION) || name.indexOf('-') < 0) {
+            return 0;
+        }
+
+        try {
+            return Long.parseLong(name.substring(name.indexOf('-') + 1,
+                    name.length() - SegmentFormat.FILE_EXTENSION.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package searchengine.segment;
+
+import lombok.Getter;
+import searchengine.utils.PostingList;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Чтение сегмента индекса. Файл целиком отображается в память через MappedByteBuffer, при открытии в память
+ * читается только словарь лемм. Списки страниц декодируются прямо из отображенного файла при каждом обращении,
+ * без запросов к БД. Каждый вызов работает со своей копией буфера, поэтому читатель потокобезопасен.
+ */
+@Getter
+public class SegmentReader {
+    private final Path file;
+    private final String siteUrl;
+    private final MappedByteBuffer buffer;
+    private final String[] lemmas;
+    private final int[] frequencies;
+    private final long[] offsets;
+
+    private SegmentReader(Path file, String siteUrl, MappedByteBuffer buffer,
+                          String[] lemmas, int[] frequencies, long[] offsets) {
+        this.file = file;
+        this.siteUrl = siteUrl;
+        this.buffer = buffer;
+        this.lemmas = lemmas;
+        this.frequencies = frequencies;
+        this.offsets = offsets;
+    }
+
+    public static SegmentReader open(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        ByteBuffer footer = buffer.duplicate();
+        if (footer.limit() < SegmentFormat.FOOTER_LENGTH) {
+            throw new IOException("Segment " + file + " is too short");
+        }
+
+        footer.position(footer.limit() - SegmentFormat.FOOTER_LENGTH);
+        long dictionaryOffset = footer.getLong();
+        int termCount = footer.getInt();
+        long siteUrlOffset = footer.getLong();
+        if (footer.getInt() != SegmentFormat.MAGIC) {
+            throw new IOException("Segment " + file + " has wrong signature");
+        }
+
+        ByteBuffer reader = buffer.duplicate();
+        reader.position((int) siteUrlOffset);
+        String siteUrl = readString(reader);
+
+        String[] lemmas = new String[termCount];
+        int[] frequencies = new int[termCount];
+        long[] offsets = new long[termCount];
+        reader.position((int) dictionaryOffset);
+        for (int i = 0; i < termCount; i++) {
+            lemmas[i] = readString(reader);
+            frequencies[i] = SegmentFormat.readVarInt(reader);
+            offsets[i] = reader.getLong();
+        }
+
+        return new SegmentReader(file, siteUrl, buffer, lemmas, frequencies, offsets);
+    }
+
+    public long getSize() {
+        return buffer.capacity();
+    }
+
+    public int getTermCount() {
+        return lemmas.length;
+    }
+
+    /**
+     * Метод возвращает количество страниц, на которых встречается лемма
+     *
+     * @param lemma лемма
+     * @return количество страниц или 0, если леммы в сегменте нет
+     */
+    public int getFrequency(String lemma) {
+        int position = Arrays.binarySearch(lemmas, lemma);
+        return position < 0 ? 0 : frequencies[position];
+    }
+
+    /**
+     * Метод декодирует список страниц леммы из отображенного в память файла
+     *
+     * @param lemma лемма
+     * @return список страниц, пустой если леммы в сегменте нет
+     */
+    public PostingList getPostingList(String lemma) {
+        int position = Arrays.binarySearch(lemmas, lemma);
+        if (position < 0) {
+            return new PostingList(new int[0], new float[0]);
+        }
+
+        return readPostingList(offsets[position]);
+    }
+
+    /**
+     * Метод возвращает лемму словаря по ее номеру в порядке сортировки
+     */
+    public String getLemma(int termNumber) {
+        return lemmas[termNumber];
+    }
+
+    /**
+     * Метод возвращает список страниц леммы словаря по ее номеру в порядке сортировки
+     */
+    public PostingList getPostingList(int termNumber) {
+        return readPostingList(offsets[termNumber]);
+    }
+
+    private PostingList readPostingList(long offset) {
+        ByteBuffer reader = buffer.duplicate();
+        reader.position((int) offset);
+        int count = SegmentFormat.readVarInt(reader);
+        int[] pageIds = new int[count];
+        float[] ranks = new float[count];
+
+        int pageId = 0;
+        for (int i = 0; i < count; i++) {
+            pageId += SegmentFormat.readVarInt(reader);
+            pageIds[i] = pageId;
+        }
+
+        for (int i = 0; i < count; i++) {
+            ranks[i] = reader.getFloat();
+        }
+
+        return new PostingList(pageIds, ranks);
+    }
+
+    private static String readString(ByteBuffer reader) {
+        byte[] bytes = new byte[SegmentFormat.readVarInt(reader)];
+        reader.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,124 @@
+package searchengine.segment;
+
+import searchengine.utils.PostingList;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Запись сегмента индекса одного сайта. Списки страниц пишутся в файл по мере добавления лемм в любом порядке,
+ * словарь накапливается в памяти и сортируется при завершении записи. Файл сначала пишется во временный, а затем
+ * атомарно переименовывается, поэтому читатели никогда не видят недописанный сегмент. Сегмент отображается в память
+ * одним буфером, поэтому его размер проверяется перед каждой записью и не может превысить 2 ГБ.
+ */
+public class SegmentWriter implements Closeable {
+    private static final int MAX_VAR_INT_BYTES = 5;
+    private final Path file;
+    private final Path tempFile;
+    private final String siteUrl;
+    private final DataOutputStream output;
+    private final TreeMap<String, long[]> dictionary = new TreeMap<>();
+    private boolean finished = false;
+
+    public SegmentWriter(Path file, String siteUrl) throws IOException {
+        this.file = file;
+        this.tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        this.siteUrl = siteUrl;
+        this.output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), 1 << 16));
+    }
+
+    /**
+     * Метод добавляет в сегмент список страниц леммы
+     *
+     * @param lemma лемма
+     * @param postingList отсортированный по возрастанию id список страниц леммы
+     */
+    public void addTerm(String lemma, PostingList postingList) throws IOException {
+        if (postingList.size() == 0) {
+            return;
+        }
+
+        if (dictionary.containsKey(lemma)) {
+            throw new IllegalArgumentException("Lemma " + lemma + " is already written to segment");
+        }
+
+        reserve((long) MAX_VAR_INT_BYTES * (postingList.size() + 1) + (long) Float.BYTES * postingList.size());
+        dictionary.put(lemma, new long[]{postingList.size(), output.size()});
+        SegmentFormat.writeVarInt(output, postingList.size());
+
+        int previousId = 0;
+        for (int pageId: postingList.getPageIds()) {
+            SegmentFormat.writeVarInt(output, pageId - previousId);
+            previousId = pageId;
+        }
+
+        for (float rank: postingList.getRanks()) {
+            output.writeFloat(rank);
+        }
+    }
+
+    /**
+     * Метод проверяет, что после записи указанного количества байтов сегмент не превысит 2 ГБ. Счетчик записанных
+     * байтов не растет дальше Integer.MAX_VALUE, поэтому проверка выполняется до записи, а не после нее
+     *
+     * @param bytes наибольшее количество байтов, которое будет записано
+     */
+    private void reserve(long bytes) throws IOException {
+        if (output.size() + bytes >= Integer.MAX_VALUE) {
+            throw new IOException("Segment " + file + " exceeds 2 GB");
+        }
+    }
+
+    public long getWrittenBytes() {
+        return output.size();
+    }
+
+    /**
+     * Метод записывает словарь и завершающий блок и публикует файл сегмента
+     *
+     * @return путь к записанному сегменту
+     */
+    public Path finish() throws IOException {
+        long dictionaryOffset = output.size();
+        for (Map.Entry<String, long[]> entry: dictionary.entrySet()) {
+            byte[] lemma = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            reserve(MAX_VAR_INT_BYTES * 2 + lemma.length + Long.BYTES);
+            SegmentFormat.writeVarInt(output, lemma.length);
+            output.write(lemma);
+            SegmentFormat.writeVarInt(output, (int) entry.getValue()[0]);
+            output.writeLong(entry.getValue()[1]);
+        }
+
+        long siteUrlOffset = output.size();
+        byte[] site = siteUrl.getBytes(StandardCharsets.UTF_8);
+        reserve(MAX_VAR_INT_BYTES + site.length + Long.BYTES * 2 + Integer.BYTES * 2);
+        SegmentFormat.writeVarInt(output, site.length);
+        output.write(site);
+
+        output.writeLong(dictionaryOffset);
+        output.writeInt(dictionary.size());
+        output.writeLong(siteUrlOffset);
+        output.writeInt(SegmentFormat.MAGIC);
+        output.close();
+
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        finished = true;
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!finished) {
+            output.close();
+            Files.deleteIfExists(tempFile);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package searchengine.segment;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Ступенчатая политика слияния сегментов. Сегменты распределяются по уровням по размеру: на нулевом уровне
+ * сегменты меньше minSegmentSize, каждый следующий уровень в mergeFactor раз больше предыдущего. Как только
+ * на одном уровне набирается mergeFactor сегментов, они сливаются в один сегмент следующего уровня. Поэтому
+ * количество сегментов сайта растет логарифмически от объема индекса, а каждая запись переписывается
+ * ограниченное число раз.
+ */
+public class TieredMergePolicy {
+    private final int mergeFactor;
+    private final long minSegmentSize;
+
+    public TieredMergePolicy(int mergeFactor, long minSegmentSize) {
+        this.mergeFactor = Math.max(2, mergeFactor);
+        this.minSegmentSize = Math.max(1, minSegmentSize);
+    }
+
+    /**
+     * Метод выбирает сегменты для слияния на самом нижнем переполненном уровне
+     *
+     * @param sizes размеры сегментов в байтах
+     * @return номера сливаемых сегментов в списке sizes или пустой список, если сливать нечего
+     */
+    public List<Integer> findMerge(List<Long> sizes) {
+        List<List<Integer>> tiers = new ArrayList<>();
+        for (int i = 0; i < sizes.size(); i++) {
+            int tier = getTier(sizes.get(i));
+            while (tiers.size() <= tier) {
+                tiers.add(new ArrayList<>());
+            }
+            tiers.get(tier).add(i);
+        }
+
+        for (List<Integer> tier: tiers) {
+            if (tier.size() >= mergeFactor) {
+                tier.sort(Comparator.comparing(sizes::get));
+                List<Integer> result = new ArrayList<>(tier.subList(0, mergeFactor));
+                result.sort(Comparator.naturalOrder());
+                return result;
+            }
+        }
+
+        return List.of();
+    }
+
+    private int getTier(long size) {
+        int tier = 0;
+        long tierLimit = minSegmentSize;
+        while (size >= tierLimit && tierLimit <= Long.MAX_VALUE / mergeFactor) {
+            tierLimit *= mergeFactor;
+            tier++;
+        }
+        return tier;
+    }
+}
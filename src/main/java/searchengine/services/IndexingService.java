@@ -3,7 +3,7 @@ package searchengine.services;
 import org.springframework.http.ResponseEntity;
 
 public interface IndexingService {
-    ResponseEntity performIndexing();
+    ResponseEntity performIndexing(boolean incremental);
     ResponseEntity performIndexingByUrl(String url) throws InterruptedException;
     ResponseEntity stopIndexing() throws InterruptedException;
 }
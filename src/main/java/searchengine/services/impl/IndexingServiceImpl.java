@@ -1,12 +1,11 @@
 package searchengine.services.impl;
 
 import lombok.extern.slf4j.Slf4j;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import searchengine.config.CrawlerConfig;
 import searchengine.config.SitesList;
 import searchengine.dto.FalseResponse;
 import searchengine.dto.TrueResponse;
@@ -14,10 +13,15 @@ import searchengine.lemmas.Lemmatizer;
 import searchengine.model.Page;
 import searchengine.model.Site;
 import searchengine.parser.ParserWrapper;
+import searchengine.parserData.FetchResult;
+import searchengine.parserData.PageContent;
 import searchengine.repository.PageRepository;
 import searchengine.repository.SiteRepository;
+import searchengine.segment.SegmentIndex;
 import searchengine.services.IndexingService;
+import searchengine.utils.HtmlExtractor;
 import searchengine.utils.IndexingUtils;
+import searchengine.utils.PageFetcher;
 
 import java.io.IOException;
 import java.util.*;
@@ -26,40 +30,50 @@ import java.util.*;
 @Slf4j
 public class IndexingServiceImpl implements IndexingService {
     private SitesList sitesList;
+    private CrawlerConfig crawlerConfig;
     public static SiteRepository siteRepository;
     public static PageRepository pageRepository;
     public static IndexingUtils indexingUtils;
     public static Lemmatizer lemmatizer;
+    private SegmentIndex segmentIndex;
 
     @Autowired
     public IndexingServiceImpl(SitesList sitesList,
+                               CrawlerConfig crawlerConfig,
                                SiteRepository siteRepository,
                                PageRepository pageRepository,
                                IndexingUtils indexingUtils,
-                               Lemmatizer lemmatizer) {
+                               Lemmatizer lemmatizer,
+                               SegmentIndex segmentIndex) {
         this.sitesList = sitesList;
+        this.crawlerConfig = crawlerConfig;
         this.siteRepository = siteRepository;
         this.pageRepository = pageRepository;
         this.indexingUtils = indexingUtils;
         this.lemmatizer = lemmatizer;
+        this.segmentIndex = segmentIndex;
     }
 
     /**
-     * Метод выполняет индексацию по всем имеющимся в конфиге сайтам
+     * Метод выполняет индексацию по всем имеющимся в конфиге сайтам. Полная индексация пишет каждый сайт в новое
+     * поколение, а поиск до окончания обхода работает по прежнему. При инкрементальной индексации страницы
+     * запрашиваются условными запросами, и заново индексируются только изменившиеся
      *
+     * @param incremental true для инкрементальной индексации, false для индексации с нуля
      * @return true в случае успешно выполненной индексации, false в противном
      */
     @Override
-    public ResponseEntity performIndexing()  {
+    public ResponseEntity performIndexing(boolean incremental)  {
         if (getActiveIndexingThread() != null) {
             return new ResponseEntity<>(new FalseResponse(false, "Индексация уже запущена"),
                     HttpStatus.BAD_REQUEST);
         }
-       indexingUtils.deleteAllWebsiteDate();
 
         ParserWrapper parserWrapper = new ParserWrapper();
         parserWrapper.setName("ParserWrapper");
         parserWrapper.setSitesList(sitesList);
+        parserWrapper.setCrawlerConfig(crawlerConfig);
+        parserWrapper.setIncremental(incremental);
         parserWrapper.start();
 
         return new ResponseEntity<>(new TrueResponse(true), HttpStatus.OK);
@@ -73,28 +87,29 @@ public class IndexingServiceImpl implements IndexingService {
     @Override
     public ResponseEntity performIndexingByUrl(String url) throws InterruptedException {
         try {
-            Page page = pageRepository.findByPath(url);
             searchengine.model.Site site = indexingUtils.getSiteByPagePath(url, sitesList);
-            Document document = null;
+            Page page = site == null ? null : pageRepository.findByPathAndSiteId(url, site);
+            FetchResult fetchResult = PageFetcher.fetch(url);
 
-            if (Jsoup.connect(url).execute().statusCode() >= 400) {
+            if (fetchResult.getStatusCode() >= 400 || fetchResult.getDocument() == null) {
                 return getFalseResponse();
             }
 
-            document = Jsoup.connect(url).get();
+            PageContent content = HtmlExtractor.extract(fetchResult.getDocument());
 
             if (site == null) {
                 return getFalseResponse();
             }
 
             if (indexingUtils.pageIsIndexed(page)) {
+                segmentIndex.deletePage(site, page.getId());
                 indexingUtils.erasePageIndexing(page);
-                page = uodatePage(page, site, url, document);
+                page = uodatePage(site, url, fetchResult, content);
             } else if (page == null) {
-                page = uodatePage(page, site, url, document);
+                page = uodatePage(site, url, fetchResult, content);
             }
 
-            boolean result = lemmatizer.addLemmas(document.html(), site, page);
+            boolean result = lemmatizer.addLemmas(site, page);
             if (result) {
                 return new ResponseEntity<>(new TrueResponse(true), HttpStatus.OK);
             }
@@ -106,8 +121,14 @@ public class IndexingServiceImpl implements IndexingService {
         }
     }
 
-    private Page uodatePage(Page page, Site site, String url, Document document) throws IOException {
-        return pageRepository.save(new Page(site, url, Jsoup.connect(url).execute().statusCode(), document.html()));
+    private Page uodatePage(Site site, String url, FetchResult fetchResult, PageContent content) {
+        Page page = new Page(site, url, fetchResult.getStatusCode(), content.getHtml());
+        page.setTitle(content.getTitle());
+        page.setText(content.getText());
+        page.setContentHash(content.getContentHash());
+        page.setEtag(fetchResult.getHeader("ETag"));
+        page.setLastModified(fetchResult.getHeader("Last-Modified"));
+        return pageRepository.save(page);
     }
 
     /**
@@ -0,0 +1,101 @@
+package searchengine.services.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import searchengine.config.SearchConfig;
+import searchengine.dto.search.SearchContext;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Кеш результатов поиска. Ключом является сайт и отсортированный набор лемм запроса, поэтому запросы, отличающиеся
+ * только словоформами или порядком слов, используют один результат. Размер кеша ограничен, при переполнении
+ * удаляется запись, к которой дольше всех не обращались. Запись устаревает по истечении времени жизни или после
+ * изменения поколения индекса.
+ */
+@Component
+public class SearchResultCache {
+    private final int maxSize;
+    private final long timeToLive;
+    private final LinkedHashMap<String, CacheEntry> entries;
+    private long hitCount = 0;
+    private long missCount = 0;
+
+    public SearchResultCache(SearchConfig searchConfig) {
+        this.maxSize = searchConfig.getCacheSize() == null ? 1000 : searchConfig.getCacheSize();
+        this.timeToLive = (searchConfig.getCacheTtl() == null ? 600 : searchConfig.getCacheTtl()) * 1000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Метод формирует ключ кеша
+     *
+     * @param site url сайта или null, если поиск выполняется по всем сайтам
+     * @param lemmas леммы запроса
+     * @return ключ кеша
+     */
+    public static String createKey(String site, Collection<String> lemmas) {
+        return (site == null ? "*" : site) + "|" + String.join(" ", new TreeSet<>(lemmas));
+    }
+
+    /**
+     * Метод возвращает результат поиска, если он посчитан для текущего поколения индекса и не устарел
+     *
+     * @param key ключ кеша
+     * @param generation текущее поколение индекса
+     * @return результат поиска или null
+     */
+    public synchronized SearchContext get(String key, long generation) {
+        CacheEntry entry = entries.get(key);
+        if (entry == null || entry.generation != generation
+                || System.currentTimeMillis() - entry.createdTime > timeToLive) {
+            if (entry != null) {
+                entries.remove(key);
+            }
+            missCount++;
+            return null;
+        }
+
+        hitCount++;
+        return entry.context;
+    }
+
+    public synchronized void put(String key, long generation, SearchContext context) {
+        if (maxSize <= 0) {
+            return;
+        }
+
+        entries.put(key, new CacheEntry(context, generation, System.currentTimeMillis()));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    @RequiredArgsConstructor
+    private static class CacheEntry {
+        private final SearchContext context;
+        private final long generation;
+        private final long createdTime;
+    }
+}
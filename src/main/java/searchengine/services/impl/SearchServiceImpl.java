@@ -4,7 +4,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.json.JSONArray;
-import org.jsoup.Jsoup;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -13,17 +12,24 @@ import searchengine.config.SearchConfig;
 import searchengine.config.Site;
 import searchengine.config.SitesList;
 import searchengine.dto.FalseResponse;
+import searchengine.dto.page.PageSummary;
+import searchengine.dto.page.PageText;
+import searchengine.dto.search.SearchContext;
 import searchengine.dto.search.SearchDto;
 import searchengine.dto.search.SearchRequest;
 import searchengine.dto.search.SearchResponse;
 import searchengine.lemmas.Lemmatizer;
-import searchengine.model.Index;
 import searchengine.model.Lemma;
-import searchengine.model.Page;
+import searchengine.parserData.IndexGeneration;
 import searchengine.repository.IndexRepository;
 import searchengine.repository.LemmaRepository;
+import searchengine.repository.PageRepository;
 import searchengine.repository.SiteRepository;
+import searchengine.segment.SegmentIndex;
 import searchengine.services.SearchService;
+import searchengine.utils.HtmlExtractor;
+import searchengine.utils.PostingList;
+import searchengine.utils.PostingLists;
 
 import java.util.*;
 import java.util.regex.Matcher;
@@ -37,25 +43,21 @@ public class SearchServiceImpl implements SearchService {
     private final SiteRepository siteRepository;
     private final LemmaRepository lemmaRepository;
     private final IndexRepository indexRepository;
+    private final PageRepository pageRepository;
     private final Lemmatizer lemmatizer;
     private final SitesList siteList;
     private final SearchConfig searchConfig;
-    private List<Page> finalPageList;
-    private HashMap<Page, Float> absoluteRelevance = new HashMap<>();
-    private HashMap<Page, Float> relativeRelevance = new HashMap<>();
-    private HashMap<Lemma, Integer> sortedLemmas = new HashMap<>();
-    private HashMap<String, String> ratioLemmasAndQuery = new HashMap<>();
-    private List<SearchDto> searchDtoList = new ArrayList<>();
-    private SearchRequest searchRequest;
-
-    private HashMap<String, Set<Lemma>> siteLemmas = new HashMap<>();
+    private final SearchResultCache searchResultCache;
+    private final IndexGeneration indexGeneration;
+    private final SegmentIndex segmentIndex;
 
     /**
-     * Метод обертка для siteSearch() необходимый для поиска не только по одному сайту
+     * Метод выполняет поиск по всем сайтам из конфига или по одному указанному сайту. Результат поиска по набору лемм
+     * берется из кеша, если он посчитан для текущего поколения индекса, иначе считается заново и кладется в кеш.
+     * Все данные запроса хранятся в создаваемом для него контексте, поэтому сервис обслуживает параллельные запросы
      *
      * @return список результатов поиска, преобразованных в SearchDto
      */
-
     @Override
     public ResponseEntity performSearch(SearchRequest searchRequest) {
         if (searchRequest.getQuery().isBlank()) {
@@ -63,54 +65,62 @@ public class SearchServiceImpl implements SearchService {
                     HttpStatus.BAD_REQUEST);
         }
 
-        if (!newSearch(searchRequest)) {
-            this.searchRequest = searchRequest;
-            return new ResponseEntity<>(new SearchResponse(true, searchDtoList.size(), getResultList()), HttpStatus.OK);
-        }
-
-        resettingClassData();
-        this.searchRequest = searchRequest;
-        pageSearch();
-        getAbsoluteRelevance();
-        getRelativeRelevance();
-        setSearchData();
-
-        return new ResponseEntity<>(new SearchResponse(true, searchDtoList.size(), getResultList()),
-                    HttpStatus.OK);
-    }
+        HashMap<String, Integer> stringLemmasMap = lemmatizer.getLemmas(searchRequest.getQuery());
+        String cacheKey = SearchResultCache.createKey(searchRequest.getSite(), stringLemmasMap.keySet());
+        long generation = indexGeneration.get();
+        SearchContext context = searchResultCache.get(cacheKey, generation);
 
-    private boolean newSearch(SearchRequest searchRequest) {
-        if (this.searchRequest != null
-                && searchRequest.getQuery().equals(this.searchRequest.getQuery())
-                && (searchRequest.getSite() == null && this.searchRequest.getSite() == null
-                || searchRequest.getSite().equals(this.searchRequest.getSite()))) {
-            return false;
+        if (context == null) {
+            context = pageSearch(searchRequest.getSite(), stringLemmasMap);
+            searchResultCache.put(cacheKey, generation, context);
         }
 
-        return true;
+        HashMap<String, String> queryWords = lemmatizer.getRatioLemmasAndQuery(searchRequest.getQuery(),
+                stringLemmasMap.keySet());
+        return new ResponseEntity<>(new SearchResponse(true, context.getPageCount(),
+                getResultList(context, searchRequest, queryWords)), HttpStatus.OK);
     }
 
-    private void pageSearch() {
-        if (searchRequest.getSite() == null) {
+    private SearchContext pageSearch(String site, HashMap<String, Integer> stringLemmasMap) {
+        Map<Integer, Float> absoluteRelevance = new HashMap<>();
+        Map<String, List<String>> siteLemmas = new HashMap<>();
+
+        if (site == null) {
             for (Site siteItem: siteList.getSites()) {
-                searchForPagesOnSite(siteItem.getUrl());
+                searchForPagesOnSite(stringLemmasMap, siteItem.getUrl(), absoluteRelevance, siteLemmas);
             }
         } else {
-            searchForPagesOnSite(searchRequest.getSite());
+            searchForPagesOnSite(stringLemmasMap, site, absoluteRelevance, siteLemmas);
         }
+
+        return new SearchContext(absoluteRelevance, siteLemmas);
     }
 
     /**
-     * Для указанного сайта метод ищет удовлетворяющие запросу сниппеты
+     * Для указанного сайта метод находит страницы, на которых встречаются все леммы запроса. Поиск идет по активному
+     * поколению сайта: если для него есть сегменты локального индекса, то леммы и страницы берутся из них без
+     * обращения к БД
      *
+     * @param stringLemmasMap леммы запроса
      * @param site url сайта, по которому будет осуществляться поиск
+     * @param absoluteRelevance абсолютная релевантность найденных страниц, дополняется страницами сайта
+     * @param siteLemmas леммы запроса в порядке возрастания встречаемости, дополняется леммами для сайта
      */
-    @Override
-    public void searchForPagesOnSite(String site) {
+    private void searchForPagesOnSite(HashMap<String, Integer> stringLemmasMap,
+                                      String site,
+                                      Map<Integer, Float> absoluteRelevance,
+                                      Map<String, List<String>> siteLemmas) {
+        if (stringLemmasMap.size() == 0) {
+            return;
+        }
+
         searchengine.model.Site currentSite = siteRepository.findByUrl(site);
-        HashMap<String, Integer> stringLemmasMap = lemmatizer.getLemmas(searchRequest.getQuery());
+        if (currentSite == null) {
+            return;
+        }
 
-        if (stringLemmasMap.size() == 0) {
+        if (segmentIndex.hasSegments(currentSite)) {
+            searchForPagesInSegments(stringLemmasMap.keySet(), currentSite, absoluteRelevance, siteLemmas);
             return;
         }
 
@@ -120,17 +130,60 @@ public class SearchServiceImpl implements SearchService {
             return;
         }
 
-        ratioLemmasAndQuery = lemmatizer.getRatioLemmasAndQuery(searchRequest.getQuery(), selectedLemmas);
-        sortedLemmas = sortLemmas(selectedLemmas);
-        siteLemmas.put(site, selectedLemmas.keySet());
-        addPagesToFinalPageList(sortedLemmas);
+        HashMap<Lemma, Integer> sortedLemmas = sortLemmas(selectedLemmas);
+        List<String> lemmas = new ArrayList<>();
+        List<PostingList> postingLists = new ArrayList<>();
+        for (Lemma item: sortedLemmas.keySet()) {
+            PostingList postingList = indexRepository.getPostingList(item.getId());
+            if (postingList.size() == 0) {
+                return;
+            }
+            lemmas.add(item.getLemma());
+            postingLists.add(postingList);
+        }
+
+        siteLemmas.put(currentSite.getUrl(), lemmas);
+        addPagesToRelevanceMap(postingLists, absoluteRelevance);
+    }
+
+    /**
+     * Метод находит страницы сайта по сегментам локального индекса. Встречаемость лемм берется из словарей
+     * сегментов, списки страниц читаются из отображенных в память файлов
+     *
+     * @param lemmas леммы запроса
+     * @param site активное поколение сайта, по которому будет осуществляться поиск
+     * @param absoluteRelevance абсолютная релевантность найденных страниц, дополняется страницами сайта
+     * @param siteLemmas леммы запроса в порядке возрастания встречаемости, дополняется леммами для сайта
+     */
+    private void searchForPagesInSegments(Set<String> lemmas,
+                                          searchengine.model.Site site,
+                                          Map<Integer, Float> absoluteRelevance,
+                                          Map<String, List<String>> siteLemmas) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String lemma: lemmas) {
+            int frequency = segmentIndex.getFrequency(site.getId(), lemma);
+            if (frequency == 0 || frequency >= searchConfig.getWordRankLimit()) {
+                return;
+            }
+            frequencies.put(lemma, frequency);
+        }
+
+        List<String> sortedLemmas = new ArrayList<>(frequencies.keySet());
+        sortedLemmas.sort(Comparator.comparing(frequencies::get));
+        List<PostingList> postingLists = new ArrayList<>();
+        for (String lemma: sortedLemmas) {
+            postingLists.add(segmentIndex.getPostingList(site.getId(), lemma));
+        }
+
+        siteLemmas.put(site.getUrl(), sortedLemmas);
+        addPagesToRelevanceMap(postingLists, absoluteRelevance);
     }
 
     private @NotNull HashMap<Lemma, Integer> selectLemmasFromDB(@NotNull Set<String> lemmas, searchengine.model.Site site) {
         HashMap<Lemma, Integer> result = new HashMap<>();
 
         for (String lemmaItem: lemmas) {
-            result.putAll(getLemmaMap(lemmaItem, site.getUrl()));
+            result.putAll(getLemmaMap(lemmaItem, site));
         }
 
         return result;
@@ -140,14 +193,13 @@ public class SearchServiceImpl implements SearchService {
      * Метод убирает из списка лемм слишком часто встречающиеся леммы
      *
      * @param lemmaItem лемма
-     * @param site url сайта, на котором выполнять поиск
+     * @param site сайт, на котором выполнять поиск
      * @return ключ является страницей, а значение ее релевантность
      */
-    private @NotNull HashMap<Lemma, Integer> getLemmaMap(String lemmaItem, String site) {
+    private @NotNull HashMap<Lemma, Integer> getLemmaMap(String lemmaItem, searchengine.model.Site site) {
         HashMap<Lemma, Integer> result = new HashMap<>();
 
-        searchengine.model.Site siteModel = siteRepository.findByUrl(site);
-        Lemma lemma = lemmaRepository.findByLemmaAndSiteId(lemmaItem, siteModel);
+        Lemma lemma = lemmaRepository.findByLemmaAndSiteId(lemmaItem, site);
         if (lemma != null && lemma.getFrequency() < searchConfig.getWordRankLimit()) {
             result.put(lemma, lemma.getFrequency());
         }
@@ -156,82 +208,83 @@ public class SearchServiceImpl implements SearchService {
     }
 
     /**
-     * Подготовка итогового списка лемм. По первой, самой редкой лемме из списка, находятся все страницы,
-     * на которых она встречается. Далее ищутся соответствия следующей леммы из этого списка страниц. Операция
-     * повторяется для каждой следующей леммы
+     * Подготовка итогового списка страниц. Для каждой леммы запроса есть отсортированный список id страниц, на
+     * которых она встречается, вместе с rank леммы на них. Списки пересекаются в памяти, начиная с самой редкой
+     * леммы, а абсолютная релевантность страниц пересечения считается как сумма rank из этих же списков
      *
-     * @param sortedLemmas отсортированные в порядке возрастания встречаемости на сайте леммы
-     * @return заполняется переменная класса finalPageList
+     * @param postingLists списки страниц лемм запроса
+     * @param absoluteRelevance абсолютная релевантность страниц, дополняется найденными страницами
      */
-    private void addPagesToFinalPageList(@NotNull HashMap<Lemma, Integer> sortedLemmas) {
-        Lemma[] lemmaArray = sortedLemmas.keySet().toArray(new Lemma[sortedLemmas.size()]);
-        List<Page> tempPageList = new ArrayList<>();
-        List<Index> indexList = indexRepository.findByLemmaId(lemmaArray[0]);
-
-        for (Index item: indexList) {
-            tempPageList.add(item.getPageId());
+    private void addPagesToRelevanceMap(@NotNull List<PostingList> postingLists,
+                                        Map<Integer, Float> absoluteRelevance) {
+        int[] pageIds = PostingLists.intersectAll(postingLists.stream().map(PostingList::getPageIds).toList());
+        float[] relevance = new float[pageIds.length];
+        for (PostingList postingList: postingLists) {
+            PostingLists.addRanks(pageIds, postingList, relevance);
         }
 
-        if (lemmaArray.length == 1) {
-            if (finalPageList == null || finalPageList.size() == 0) {
-                finalPageList = tempPageList;
-            } else {
-                finalPageList.addAll(tempPageList);
-            }
-
-            return;
+        for (int i = 0; i < pageIds.length; i++) {
+            absoluteRelevance.merge(pageIds[i], relevance[i], Float::sum);
         }
-
-        setListPages(lemmaArray, tempPageList);
     }
 
     /**
-     * Вспомогательный метод для setFinalPageList(), выполняющий алгоритм в описании setFinalPageList()
+     * Метод выполняет подбор и запись результатов поиска для страниц из запрошенного окна выдачи. Из БД загружаются
+     * только эти страницы: облегченное представление без содержимого и видимый текст для сниппетов
      *
-     * @param lemmaArray отсортированные в порядке возрастания встречаемости на сайте леммы
-     * @param pageList список страниц, на которых встречаются леммы
-     * @return заполняется переменная класса finalPageList
+     * @param context результат поиска по леммам запроса
+     * @param queryWords ключ является леммой, а значение словом из запроса
+     * @param pageIds id страниц окна в порядке убывания релевантности
+     * @return список моделей searchDto
      */
-    private void setListPages(Lemma[] lemmaArray, @NotNull List<Page> pageList) {
-        List<Page> tempPageList = new ArrayList<>();
+    private List<SearchDto> setSearchData(SearchContext context,
+                                          Map<String, String> queryWords,
+                                          List<Integer> pageIds) {
+        Map<Integer, PageSummary> pages = new HashMap<>();
+        Set<Integer> siteIds = new HashSet<>();
+        for (PageSummary page: pageRepository.findSummariesByIdIn(pageIds)) {
+            pages.put(page.getId(), page);
+            siteIds.add(page.getSiteId());
+        }
 
-        for (Page item: pageList) {
-            Index index = indexRepository.findByPageIdAndLemmaId(item, lemmaArray[1]);
-            if (index != null) {
-                tempPageList.add(index.getPageId());
+        Map<Integer, PageText> texts = new HashMap<>();
+        for (PageText text: pageRepository.findTextsByIdIn(pages.keySet())) {
+            texts.put(text.getId(), text);
+        }
+        if (texts.size() < pages.size()) {
+            for (PageText text: pageRepository.findLegacyTextsByIdIn(pages.keySet())) {
+                texts.put(text.getId(), text);
             }
         }
 
-        if (lemmaArray.length == 2) {
-            if (finalPageList == null || finalPageList.size() == 0) {
-                finalPageList = tempPageList;
-            } else {
-                finalPageList.addAll(tempPageList);
-            }
-        } else {
-            setListPages(Arrays.copyOfRange(lemmaArray, 1, lemmaArray.length), tempPageList);
+        Map<Integer, searchengine.model.Site> sites = new HashMap<>();
+        for (searchengine.model.Site site: siteRepository.findAllById(siteIds)) {
+            sites.put(site.getId(), site);
         }
-    }
 
-    /**
-     * Метод выполняет подбор и запись результатов поиска по списку страниц на сайте
-     *
-     * @return список моделей searchDto
-     */
-    private List<SearchDto> setSearchData() {
-        searchDtoList = new ArrayList<>();
-        for (Page item: finalPageList) {
-            JSONArray snippets = getSnippets(item);
-            if (snippets.length() == 0) {
+        List<SearchDto> searchDtoList = new ArrayList<>();
+        for (Integer pageId: pageIds) {
+            PageSummary item = pages.get(pageId);
+            PageText text = texts.get(pageId);
+            searchengine.model.Site itemSite = item == null ? null : sites.get(item.getSiteId());
+            if (text == null || itemSite == null) {
                 continue;
             }
 
-            String site = item.getSiteId().getUrl();
-            String siteName = item.getSiteId().getName();
+            List<String> siteQueryWords = new ArrayList<>();
+            for (String lemma: context.getSiteLemmas().getOrDefault(itemSite.getUrl(), List.of())) {
+                siteQueryWords.add(queryWords.get(lemma));
+            }
+
+            String pageText = HtmlExtractor.getText(text.getText(), text.getContent());
+            JSONArray snippets = getSnippets(pageText, siteQueryWords);
+
+            String site = itemSite.getUrl();
+            String siteName = itemSite.getName();
             String uri = UriComponentsBuilder.fromUriString(item.getPath()).build().getPath();
-            String title = Jsoup.parse(item.getContent()).title();
-            String snippet = (String) snippets.get(0);
-            float relevance = relativeRelevance.get(item);
+            String title = HtmlExtractor.getTitle(item.getTitle(), text.getContent());
+            String snippet = snippets.length() == 0 ? getDefaultSnippet(pageText) : (String) snippets.get(0);
+            float relevance = context.getRelativeRelevance(pageId);
 
             SearchDto searchDto = new SearchDto(site, siteName, uri, title, snippet, relevance);
             searchDtoList.add(searchDto);
@@ -240,40 +293,17 @@ public class SearchServiceImpl implements SearchService {
         return searchDtoList;
     }
 
-    private void getAbsoluteRelevance() {
-        for (Page page: finalPageList) {
-            Set<Lemma> lemmas = siteLemmas.get(page.getSiteId().getUrl());
-
-            for (Lemma lemma: lemmas) {
-               Index index = indexRepository.findByPageIdAndLemmaId(page, lemma);
-
-               if (absoluteRelevance.containsKey(page)) {
-                   absoluteRelevance.put(page, absoluteRelevance.get(page) + index.getWordRank());
-               } else {
-                   absoluteRelevance.put(page, index.getWordRank());
-               }
-            }
-        }
-
-        absoluteRelevance = sortPages(absoluteRelevance);
-    }
-
-    private void getRelativeRelevance() {
-        List<Float> absoluteRelevanceList = new ArrayList<>(absoluteRelevance.values().stream().toList());
-
-        try{
-            if (absoluteRelevanceList.size() != 0) {
-                float relevanceMax = absoluteRelevanceList.get(absoluteRelevanceList.size()-1);
-
-                for (Page page: finalPageList) {
-                    relativeRelevance.put(page, absoluteRelevance.get(page) / relevanceMax);
-                }
-            }
-        } catch (ArrayIndexOutOfBoundsException e) {
-            log.error("Query: " + searchRequest.getQuery() + ", finalPageList.size = " + finalPageList.size()
-                    + ", absoluteRelevance.size = : " + absoluteRelevance.size()
-                    + ", relativeRelevance.size: " + relativeRelevance.size());
-        }
+    /**
+     * Метод возвращает начало текста страницы, если слова запроса не найдены в нем дословно
+     * (например, на странице встречается только другая словоформа). Страница при этом остается
+     * в выдаче, чтобы количество результатов совпадало с числом найденных страниц.
+     *
+     * @param text видимый текст страницы
+     * @return начало текста длиной не более двух интервалов сниппета
+     */
+    private String getDefaultSnippet(@NotNull String text) {
+        int length = Math.min(text.length(), searchConfig.getSnippetInterval() * 2);
+        return text.substring(0, length);
     }
 
     /**
@@ -294,36 +324,55 @@ public class SearchServiceImpl implements SearchService {
     }
 
     /**
-     * Метод сортирует страницы в порядке возрастания их релевантности
+     * Метод выбирает count самых релевантных страниц. Страницы проходят через ограниченную кучу размера count,
+     * вершиной которой является наименее релевантная из отобранных страниц, поэтому полная сортировка всех
+     * найденных страниц не требуется. При равной релевантности выше стоит страница с меньшим id
      *
-     * @param pages ключ является леммой, а значение ее релевантность
-     * @return ключ является страницей, а значение ее релевантность
+     * @param pages ключ является id страницы, а значение ее релевантность
+     * @param count количество отбираемых страниц
+     * @return id страниц в порядке убывания релевантности
      */
-    private HashMap<Page, Float> sortPages(@NotNull Map<Page, Float> pages) {
-        HashMap<Page, Float> result = pages.entrySet()
-                .stream()
-                .sorted(Map.Entry.comparingByValue())
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue,
-                        (oldValue, newValue) -> oldValue, LinkedHashMap::new));
+    private List<Integer> selectTopPages(@NotNull Map<Integer, Float> pages, int count) {
+        if (count <= 0) {
+            return new ArrayList<>();
+        }
+
+        Comparator<Map.Entry<Integer, Float>> byRelevance = Map.Entry.<Integer, Float>comparingByValue()
+                .thenComparing(Map.Entry.<Integer, Float>comparingByKey().reversed());
+        PriorityQueue<Map.Entry<Integer, Float>> heap = new PriorityQueue<>(count + 1, byRelevance);
+
+        for (Map.Entry<Integer, Float> entry: pages.entrySet()) {
+            if (heap.size() < count) {
+                heap.add(entry);
+            } else if (byRelevance.compare(entry, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+
+        List<Integer> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            result.add(heap.poll().getKey());
+        }
+
+        Collections.reverse(result);
         return result;
     }
 
     /**
      * Метод выбирает сниппеты по точному совпадению слов из запроса.
      *
-     * @param page страница, на которой выполняется поиск сниппетов
+     * @param text видимый текст страницы, на которой выполняется поиск сниппетов
+     * @param queryWords слова запроса в порядке возрастания встречаемости их лемм на сайте
      * @return массив сниппетов
      */
-    private JSONArray getSnippets(@NotNull Page page) {
-        String content = lemmatizer.clearHTML(page.getContent()).toLowerCase(Locale.ROOT);
+    private JSONArray getSnippets(@NotNull String text, List<String> queryWords) {
+        String content = text.toLowerCase(Locale.ROOT);
         List<String> wordSnippetList = new ArrayList<>();
 
-        for (Lemma item: sortedLemmas.keySet()) {
-            String queryWord = ratioLemmasAndQuery.get(item.getLemma());
+        for (String queryWord: queryWords) {
             if (wordSnippetList.size() == 0) {
-                wordSnippetList = getFirstWordSnippetList(content, queryWord);
+                wordSnippetList = getFirstWordSnippetList(content, queryWord, queryWords.size() == 1);
             } else {
                 updateSnippetList(wordSnippetList, queryWord);
             }
@@ -364,9 +413,10 @@ public class SearchServiceImpl implements SearchService {
      *
      * @param content текс, взятый их html страницы
      * @param wordToFind искомое слово
+     * @param firstMatchOnly выбрать только первое вхождение слова
      * @return Список найденных отрезков текста
      */
-    public List<String> getFirstWordSnippetList(String content, String wordToFind) {
+    public List<String> getFirstWordSnippetList(String content, String wordToFind, boolean firstMatchOnly) {
         Pattern word = Pattern.compile("\\b"+wordToFind+"\\b");
         Matcher match = word.matcher(content);
         List<String> resultList = new ArrayList<>();
@@ -382,7 +432,7 @@ public class SearchServiceImpl implements SearchService {
 
             resultList.add(content.substring(firstIndex, lastIndex));
 
-            if (sortedLemmas.size() == 1) {
+            if (firstMatchOnly) {
                 break;
             }
         }
@@ -398,22 +448,14 @@ public class SearchServiceImpl implements SearchService {
         return jsonArray;
     }
 
-    private List<SearchDto> getResultList() {
+    private List<SearchDto> getResultList(SearchContext context,
+                                          SearchRequest searchRequest,
+                                          Map<String, String> queryWords) {
+        int pageCount = context.getPageCount();
         int start = searchRequest.getOffset() == 0 ? 0 : searchRequest.getLimit() * (searchRequest.getOffset()+1);
-        int end = start + searchRequest.getLimit() > searchDtoList.size() ? searchDtoList.size() : start + searchRequest.getLimit();
-        List<SearchDto> copyList = new ArrayList<>(searchDtoList.subList(start, end));
-        return copyList;
-    }
-
-    private void resettingClassData() {
-        try {
-            searchDtoList.clear();
-            sortedLemmas.clear();
-            finalPageList.clear();
-            absoluteRelevance.clear();
-            relativeRelevance.clear();
-        } catch (NullPointerException ex) {
-            log.info("Очищаемые поля SearchServiceImpl пусты.");
-        }
+        start = Math.min(start, pageCount);
+        int end = start + searchRequest.getLimit() > pageCount ? pageCount : start + searchRequest.getLimit();
+        List<Integer> topPageIds = selectTopPages(context.getAbsoluteRelevance(), end);
+        return setSearchData(context, queryWords, new ArrayList<>(topPageIds.subList(start, end)));
     }
 }
@@ -56,7 +56,7 @@ public class StatisticsServiceImpl implements StatisticsService {
     private void setStatisticsData(List<Site> sitesList) {
         for (int i = 0; i < sitesList.size(); i++) {
             Site site = sitesList.get(i);
-            searchengine.model.Site modelSite = siteRepository.findByName(site.getName());
+            searchengine.model.Site modelSite = siteRepository.findFirstByNameOrderByIdDesc(site.getName());
             DetailedStatisticsItem item = new DetailedStatisticsItem();
             item.setName(site.getName());
             item.setUrl(site.getUrl());
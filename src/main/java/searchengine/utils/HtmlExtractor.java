@@ -0,0 +1,164 @@
+package searchengine.utils;
+
+import org.jsoup.Jsoup;
+import org.jsoup.internal.StringUtil;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+import searchengine.model.Page;
+import searchengine.parserData.PageContent;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Извлечение данных страницы из разобранного документа. Видимый текст, заголовок и ссылки собираются за один обход
+ * дерева документа, после чего документ больше не нужен. Текст совпадает с результатом Document.text(): пробельные
+ * символы схлопываются, между блочными элементами ставится пробел, содержимое script и style не попадает в текст.
+ */
+public final class HtmlExtractor {
+
+    private HtmlExtractor() {
+    }
+
+    /**
+     * Метод извлекает из документа разметку, заголовок, видимый текст и ссылки
+     *
+     * @param document документ страницы
+     * @return данные страницы
+     */
+    public static PageContent extract(Document document) {
+        ContentVisitor visitor = new ContentVisitor();
+        NodeTraversor.traverse(visitor, document);
+
+        String text = visitor.text.toString().trim();
+        return new PageContent(document.html(), visitor.title, text, visitor.links,
+                getContentHash(visitor.title, text));
+    }
+
+    /**
+     * Метод вычисляет хеш SHA-256 заголовка и видимого текста страницы. От них зависят леммы страницы и результаты
+     * поиска по ней, поэтому страницу с тем же хешем не нужно индексировать заново
+     *
+     * @param title заголовок страницы
+     * @param text видимый текст страницы
+     * @return хеш в шестнадцатеричном виде
+     */
+    public static String getContentHash(String title, String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(title.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Метод возвращает видимый текст страницы. Для страниц, сохраненных без текста, текст извлекается из html
+     *
+     * @param page страница
+     * @return видимый текст страницы
+     */
+    public static String getText(Page page) {
+        return page.getText() != null ? page.getText() : getText(null, page.getContent());
+    }
+
+    /**
+     * Метод возвращает видимый текст страницы или извлекает его из html, если текст не сохранен
+     *
+     * @param text сохраненный текст страницы или null
+     * @param html html страницы
+     * @return видимый текст страницы
+     */
+    public static String getText(String text, String html) {
+        if (text != null) {
+            return text;
+        }
+
+        return html == null ? "" : Jsoup.parse(html).text();
+    }
+
+    /**
+     * Метод возвращает заголовок страницы. Для страниц, сохраненных без заголовка, он извлекается из html
+     *
+     * @param page страница
+     * @return заголовок страницы
+     */
+    public static String getTitle(Page page) {
+        return page.getTitle() != null ? page.getTitle() : getTitle(null, page.getContent());
+    }
+
+    /**
+     * Метод возвращает заголовок страницы или извлекает его из html, если заголовок не сохранен
+     *
+     * @param title сохраненный заголовок страницы или null
+     * @param html html страницы
+     * @return заголовок страницы
+     */
+    public static String getTitle(String title, String html) {
+        if (title != null) {
+            return title;
+        }
+
+        return html == null ? "" : Jsoup.parse(html).title();
+    }
+
+    private static class ContentVisitor implements NodeVisitor {
+        private final StringBuilder text = new StringBuilder();
+        private final List<String> links = new ArrayList<>();
+        private String title = "";
+
+        @Override
+        public void head(Node node, int depth) {
+            if (node instanceof TextNode textNode) {
+                if (isPreformatted(textNode.parent())) {
+                    text.append(textNode.getWholeText());
+                } else {
+                    StringUtil.appendNormalisedWhitespace(text, textNode.getWholeText(), lastCharIsWhitespace());
+                }
+            } else if (node instanceof Element element) {
+                if (text.length() > 0 && (element.isBlock() || element.normalName().equals("br"))
+                        && !lastCharIsWhitespace()) {
+                    text.append(' ');
+                }
+
+                if (element.normalName().equals("a") && element.hasAttr("href")) {
+                    links.add(element.attr("href"));
+                } else if (element.normalName().equals("title") && title.isEmpty()) {
+                    title = StringUtil.normaliseWhitespace(element.text()).trim();
+                }
+            }
+        }
+
+        @Override
+        public void tail(Node node, int depth) {
+            if (node instanceof Element element && element.isBlock() && node.nextSibling() instanceof TextNode
+                    && !lastCharIsWhitespace()) {
+                text.append(' ');
+            }
+        }
+
+        private boolean lastCharIsWhitespace() {
+            return text.length() != 0 && text.charAt(text.length() - 1) == ' ';
+        }
+
+        private static boolean isPreformatted(Node node) {
+            for (int i = 0; node instanceof Element element && i < 6; i++, node = node.parent()) {
+                if (element.tag().preserveWhitespace()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -2,69 +2,77 @@ package searchengine.utils;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.jsoup.Connection;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.util.UriComponents;
 import org.springframework.web.util.UriComponentsBuilder;
 import searchengine.config.SitesList;
+import searchengine.dto.page.PageFingerprint;
 import searchengine.lemmas.Lemmatizer;
 import searchengine.model.*;
+import searchengine.parserData.FetchResult;
+import searchengine.parserData.IndexGeneration;
+import searchengine.parserData.PageContent;
 import searchengine.parserData.PageLoaderInfo;
+import searchengine.parserData.SiteCrawlContext;
 import searchengine.repository.IndexRepository;
 import searchengine.repository.LemmaRepository;
 import searchengine.repository.PageRepository;
 import searchengine.repository.SiteRepository;
+import searchengine.segment.SegmentIndex;
 
 import java.io.IOException;
 import java.util.*;
 
-import static searchengine.parser.ParserWrapper.*;
+import static searchengine.parser.ParserWrapper.hostScheduler;
 
 @Component
 @Slf4j
 public class IndexingUtils {
     private static SiteRepository siteRepository;
     private static PageRepository pageRepository;
-    private final LemmaRepository lemmaRepository;
-    private final IndexRepository indexRepository;
+    private static LemmaRepository lemmaRepository;
+    private static IndexRepository indexRepository;
     private static Lemmatizer lemmatizer;
+    private static SegmentIndex segmentIndex;
+    private static IndexGeneration indexGeneration;
 
     @Autowired
     public IndexingUtils(SiteRepository siteRepository,
                          PageRepository pageRepository,
                          LemmaRepository lemmaRepository,
                          IndexRepository indexRepository,
-                         Lemmatizer lemmatizer) {
+                         Lemmatizer lemmatizer,
+                         SegmentIndex segmentIndex,
+                         IndexGeneration indexGeneration) {
         IndexingUtils.siteRepository = siteRepository;
         IndexingUtils.pageRepository = pageRepository;
-        this.indexRepository = indexRepository;
-        this.lemmaRepository = lemmaRepository;
+        IndexingUtils.indexRepository = indexRepository;
+        IndexingUtils.lemmaRepository = lemmaRepository;
         IndexingUtils.lemmatizer = lemmatizer;
+        IndexingUtils.segmentIndex = segmentIndex;
+        IndexingUtils.indexGeneration = indexGeneration;
     }
 
-    public void deleteAllWebsiteDate() {
-        indexRepository.deleteAll();
-        lemmaRepository.deleteAll();
-        pageRepository.deleteAll();
-        siteRepository.deleteAll();
-    }
-
+    /**
+     * Метод загружает страницу одним запросом и возвращает ее документ
+     *
+     * @param url ссылка на страницу
+     * @return документ страницы
+     */
     public static Document getJsoupDocument(String url) throws IOException, InterruptedException {
         if (Thread.currentThread().isInterrupted()) {
             throw new InterruptedException();
         }
 
-        Connection connection = Jsoup.connect(url).userAgent(RandomUserAgent.getRandomUserAgent()).timeout(100000).get().connection();
-        int status = connection.execute().statusCode();
-        if (status < 200 || status > 299) {
+        FetchResult result = PageFetcher.fetch(url);
+        if (!result.isSuccessful() || result.getDocument() == null) {
             throw new IOException(url + " connection failed.");
         }
 
-        return connection.get();
+        return result.getDocument();
     }
 
     public Site getSiteByPagePath(String path, SitesList sitesList) {
@@ -98,22 +106,163 @@ public class IndexingUtils {
             return false;
         }
 
-        return indexRepository.findByPageId(page).size() != 0;
+        return indexRepository.existsByPageId(page);
     }
 
+    /**
+     * Метод удаляет страницу и ее индексы перед повторной индексацией, уменьшая frequency лемм страницы. Индексы
+     * других страниц с теми же леммами не затрагиваются
+     *
+     * @param page удаляемая страница
+     */
     public void erasePageIndexing(Page page) {
-        List<Index> indexList = indexRepository.findByPageId(page);
-
-        if (indexList.size() != 0) {
-            for (Index item: indexList) {
-                indexRepository.deleteAllByLemmaId(item.getLemmaId());
-                Lemma lemma = item.getLemmaId();
-                lemma.setFrequency(lemma.getFrequency()-1);
-                lemmaRepository.save(lemma);
+        pageRepository.erasePage(page.getId());
+        indexGeneration.increment();
+    }
+
+    /**
+     * Метод удаляет страницу сайта, найденную при прошлом обходе, вместе с ее индексами в БД и в сегментах
+     *
+     * @param site сайт страницы
+     * @param pageId id страницы
+     */
+    public static void removePage(Site site, Integer pageId) {
+        segmentIndex.deletePage(site, pageId);
+        pageRepository.erasePage(pageId);
+        indexGeneration.increment();
+    }
+
+    public static Site findSite(String url) {
+        return siteRepository.findByUrl(url);
+    }
+
+    /**
+     * Метод создает новое поколение сайта для полной индексации. Если у сайта уже есть проиндексированное поколение,
+     * новое создается неактивным: поиск продолжает работать по прежним данным, пока обход не закончится
+     *
+     * @param url url сайта
+     * @param name имя сайта
+     * @return новая запись сайта
+     */
+    public static Site createSiteGeneration(String url, String name) {
+        Site site = new Site(SiteStatus.INDEXING, new Date(), null, url, name);
+        site.setActive(siteRepository.findByUrl(url) == null);
+        return siteRepository.save(site);
+    }
+
+    /**
+     * Метод завершает сайт, обход которого остановлен без ошибок. Активный сайт получает статус INDEXED, даже если
+     * обход прерван по лимиту времени. Новое поколение сайта заменяет текущее только после полного обхода, а
+     * незавершенное поколение получает статус FAILED и остается неактивным до удаления при следующей индексации
+     *
+     * @param site сайт
+     * @param complete true, если обход сайта завершен полностью
+     */
+    public static void finishIndexedSite(Site site, boolean complete) {
+        if (site.getActive()) {
+            changeSiteStatus(site, SiteStatus.INDEXED, "");
+            buildSegment(site);
+        } else if (complete) {
+            changeSiteStatus(site, SiteStatus.INDEXED, "");
+            activateSite(site);
+        } else {
+            changeSiteStatus(site, SiteStatus.FAILED, "Indexing time limit is exceeded, the previous index is kept.");
+        }
+    }
+
+    /**
+     * Метод переключает поиск на проиндексированное поколение сайта. Переключение выполняется одним запросом, после
+     * чего сегмент сайта строится по данным нового поколения, а данные прежнего поколения удаляются
+     *
+     * @param site новое поколение сайта
+     */
+    public static void activateSite(Site site) {
+        Site previous = siteRepository.findByUrl(site.getUrl());
+        siteRepository.activate(site.getUrl(), site.getId());
+        site.setActive(true);
+        indexGeneration.increment();
+
+        buildSegment(site);
+        indexGeneration.increment();
+        if (previous != null && !previous.getId().equals(site.getId())) {
+            deleteSiteData(previous);
+        }
+    }
+
+    /**
+     * Метод удаляет неактивные поколения сайтов, оставшиеся от прерванных индексаций
+     */
+    public static void deleteInactiveSites() {
+        for (Site site: siteRepository.findAllByActiveFalse()) {
+            deleteSiteData(site);
+        }
+    }
+
+    private static void deleteSiteData(Site site) {
+        long begin = System.currentTimeMillis();
+        segmentIndex.dropSite(site.getId());
+        siteRepository.deleteSiteData(site.getId());
+        log.info("Generation " + site.getId() + " of site " + site.getUrl() + " is deleted: "
+                + (System.currentTimeMillis() - begin) + " ms");
+    }
+
+    /**
+     * Метод загружает данные страниц сайта, проиндексированных при прошлом обходе, для инкрементального обхода
+     *
+     * @param context контекст обхода сайта
+     */
+    public static void loadKnownPages(SiteCrawlContext context) {
+        for (PageFingerprint fingerprint: pageRepository.findFingerprintsBySite(context.getSite())) {
+            context.getKnownPages().put(fingerprint.getPath(), fingerprint);
+        }
+    }
+
+    /**
+     * Метод удаляет страницы, которые были на сайте при прошлом обходе, но не встретились при полном повторном
+     * обходе. Если обход не завершен, ничего не удаляется: страница могла остаться непроверенной
+     *
+     * @param context контекст обхода сайта
+     */
+    public static void removeMissingPages(SiteCrawlContext context) {
+        if (!context.getFrontier().isComplete()) {
+            return;
+        }
+
+        for (PageFingerprint fingerprint: context.getKnownPages().values()) {
+            if (!context.getFrontier().isSeen(fingerprint.getPath())) {
+                removePage(context.getSite(), fingerprint.getId());
+                context.getRemovedPages().increment();
             }
         }
+    }
+
+    /**
+     * Метод начинает запись сегментов локального индекса для сайта, обход которого начинается
+     *
+     * @param site сайт
+     */
+    public static void startSegments(Site site) {
+        segmentIndex.startSite(site);
+    }
+
+    /**
+     * Метод завершает сегменты локального индекса сайта, индексация которого окончена: сегменты, записанные при
+     * обходе, сливаются в фоне в один, а если их нет, сегмент строится по данным БД. Ошибка записи сегмента
+     * не влияет на индексацию: поиск по сайту продолжит работать через БД
+     *
+     * @param site проиндексированный сайт
+     */
+    public static void buildSegment(Site site) {
+        if (segmentIndex.hasSegments(site)) {
+            segmentIndex.optimize(site.getId());
+            return;
+        }
 
-        pageRepository.delete(page);
+        try {
+            segmentIndex.buildSiteSegment(site);
+        } catch (IOException e) {
+            log.error("Segment of site " + site.getUrl() + " is not built: " + e.getMessage());
+        }
     }
 
     public static Site addSite(Site site) {
@@ -139,14 +288,16 @@ public class IndexingUtils {
 
     public static void changeSiteStatus(String name, SiteStatus status, String error) {
         if (name != null && status != null && !name.equals("")) {
-            Site site = siteRepository.findByName(name);
+            changeSiteStatus(siteRepository.findByName(name), status, error);
+        }
+    }
 
-            if (site != null) {
-                site.setStatus(status);
-                site.setLastError(error);
-                site.setStatusTime(new Date());
-                siteRepository.save(site);
-            }
+    public static void changeSiteStatus(Site site, SiteStatus status, String error) {
+        if (site != null && site.getId() != null && status != null) {
+            site.setStatus(status);
+            site.setLastError(error);
+            site.setStatusTime(new Date());
+            siteRepository.save(site);
         }
     }
 
@@ -163,56 +314,131 @@ public class IndexingUtils {
      * и выбирает ссылки с текущей страницы в соответствующие хранилища
      *
      * @param url ссылка на проверки
-     * @param site текущий сайт
+     * @param context контекст обхода текущего сайта
      */
-    public static void updateMapBaseLinks(UriComponents url, Site site) throws InterruptedException
+    public static void updateMapBaseLinks(UriComponents url, SiteCrawlContext context) throws InterruptedException
     {
         if (Thread.currentThread().isInterrupted()) {
             throw new InterruptedException();
         }
 
-        Thread.sleep(parserSleepTime);
-        Document document;
+        hostScheduler.acquire(url);
+        PageFingerprint known = context.getKnownPages().get(url.toString());
+        FetchResult result;
         try {
-            document = getJsoupDocument(url.toString());
+            result = known == null ? PageFetcher.fetch(url.toString())
+                    : PageFetcher.fetch(url.toString(), known.getEtag(), known.getLastModified());
         } catch (IOException e) {
             log.info("url: " + url + ", " + e.getMessage());
+            if (known != null) {
+                addStoredLinksToFrontier(url, context, known);
+            }
             return;
         }
 
-        setPageLoaderInfo(url, site, document);
-        addLinksToLinksMap(url, document);
+        if (known != null && revisitKnownPage(url, context, known, result)) {
+            return;
+        }
+
+        if (!result.isSuccessful() || result.getDocument() == null) {
+            log.info("url: " + url + ", " + url + " connection failed.");
+            return;
+        }
+
+        PageContent content = HtmlExtractor.extract(result.getDocument());
+        addLinksToFrontier(url, content.getLinks(), context);
+        setPageLoaderInfo(url, context, content, result, known == null ? null : known.getId());
+    }
+
+    /**
+     * Метод обрабатывает ответ на запрос страницы, проиндексированной при прошлом обходе. Если страница не изменилась
+     * (ответ 304 или тот же хеш текста), ее индексы остаются как есть, а ссылки берутся из ответа или сохраненного
+     * html. Если страница временно недоступна, она тоже остается в индексе, а ссылки берутся из сохраненного html,
+     * чтобы страницы, доступные только через нее, не были удалены как пропавшие. Пропавшая страница удаляется, а
+     * изменившаяся индексируется заново; прежняя версия удаляется загрузчиком перед сохранением новой
+     *
+     * @return true, если страница обработана и индексировать ее не нужно
+     */
+    private static boolean revisitKnownPage(UriComponents url, SiteCrawlContext context, PageFingerprint known,
+                                            FetchResult result) throws InterruptedException {
+        if (result.isNotModified()) {
+            addStoredLinksToFrontier(url, context, known);
+            context.getUnchangedPages().increment();
+            return true;
+        }
+
+        if (result.getStatusCode() == 404 || result.getStatusCode() == 410) {
+            removePage(context.getSite(), known.getId());
+            context.getRemovedPages().increment();
+            return true;
+        }
+
+        if (!result.isSuccessful() || result.getDocument() == null) {
+            log.info("url: " + url + ", status " + result.getStatusCode() + ", the previous version is kept.");
+            addStoredLinksToFrontier(url, context, known);
+            return true;
+        }
+
+        PageContent content = HtmlExtractor.extract(result.getDocument());
+        if (content.getContentHash().equals(known.getContentHash())) {
+            String etag = result.getHeader("ETag");
+            String lastModified = result.getHeader("Last-Modified");
+            if (!Objects.equals(etag, known.getEtag()) || !Objects.equals(lastModified, known.getLastModified())) {
+                pageRepository.updateValidators(known.getId(), etag, lastModified);
+            }
+            addLinksToFrontier(url, content.getLinks(), context);
+            context.getUnchangedPages().increment();
+            return true;
+        }
+
+        context.getChangedPages().increment();
+        return false;
+    }
+
+    /**
+     * Метод добавляет в очередь обхода ссылки из html страницы, сохраненного при прошлом обходе
+     */
+    private static void addStoredLinksToFrontier(UriComponents url, SiteCrawlContext context, PageFingerprint known)
+            throws InterruptedException {
+        String html = pageRepository.findContentById(known.getId());
+        if (html != null) {
+            addLinksToFrontier(url, HtmlExtractor.extract(Jsoup.parse(html, url.toString())).getLinks(), context);
+        }
     }
 
-    private static void setPageLoaderInfo(UriComponents url, Site site, Document document) throws InterruptedException {
+    /**
+     * Метод передает загруженную страницу загрузчикам страниц. Если очередь страниц заполнена, то поток ждет, пока
+     * загрузчики не освободят в ней место
+     */
+    private static void setPageLoaderInfo(UriComponents url, SiteCrawlContext context, PageContent content,
+                                          FetchResult result, Integer replacedPageId) throws InterruptedException {
         if (Thread.currentThread().isInterrupted()) {
             throw new InterruptedException();
         }
 
-        pageLoaderMap.put(url.toString(), 0);
-        PageLoaderInfo pageLoaderInfo = new PageLoaderInfo(site, url.toString(), document.html());
-        pageLoaderInfoMap.put(url.toString(), pageLoaderInfo);
+        PageLoaderInfo pageLoaderInfo = new PageLoaderInfo(context.getSite(), url.toString(), content,
+                result.getHeader("ETag"), result.getHeader("Last-Modified"));
+        pageLoaderInfo.setReplacedPageId(replacedPageId);
+        context.getPageQueue().put(pageLoaderInfo);
     }
 
     /**
-     * Метод выбирает все ссылки на текущей странице и добавляет их во временное хранилище
+     * Метод выбирает все ссылки на текущей странице и добавляет их в очередь обхода
      *
      * @param url ссылка, от которой берется база для относительных ссылок
-     * @param document объект, с которого выбираются ссылки
+     * @param links значения href ссылок страницы
+     * @param context контекст обхода текущего сайта
      */
-    private static void addLinksToLinksMap(UriComponents url, Document document) throws InterruptedException {
-        List<Element> links = document.getElementsByTag("a");
-
-        for (Element itemLink: links) {
+    private static void addLinksToFrontier(UriComponents url, List<String> links, SiteCrawlContext context) throws InterruptedException {
+        for (String itemHref: links) {
             if (Thread.currentThread().isInterrupted()) {
                 throw new InterruptedException();
             }
 
-            String itemHref = itemLink.attr("href");
-            if (IndexingUtils.urlIsSubSite(itemHref, domain)) {
-                addLinkToLinksMap(UriComponentsBuilder.fromUriString(itemHref).build());
+            if (IndexingUtils.urlIsSubSite(itemHref, context.getDomain())) {
+                addLinkToFrontier(UriComponentsBuilder.fromUriString(itemHref).build(), context);
             } else if (IndexingUtils.urlIsRelative(itemHref)) {
-                addLinkToLinksMap(UriComponentsBuilder.fromUriString(getBase(url).toString()).path(itemHref).build());
+                addLinkToFrontier(UriComponentsBuilder.fromUriString(getBase(url).toString()).path(itemHref).build(), context);
             }
         }
     }
@@ -301,35 +527,37 @@ public class IndexingUtils {
     }
 
     /**
-     * Метод запускает индексацию пачки страниц, удаляя информацию об индексированных страницах из временного хранилища
+     * Метод запускает индексацию пачки страниц, взятых из очереди загруженных страниц. Прежние версии изменившихся
+     * страниц удаляются непосредственно перед сохранением новых, поэтому до этого момента они остаются в индексе
      *
-     * @param site текущий сайт
-     * @param linkSet список страниц для индексации
+     * @param context контекст обхода текущего сайта
+     * @param pageList список страниц для индексации
      */
-    public static void addLemmas(Site site, Set<String> linkSet) throws IOException, InterruptedException {
+    public static void addLemmas(SiteCrawlContext context, List<PageLoaderInfo> pageList) throws IOException, InterruptedException {
         if (Thread.currentThread().isInterrupted()) {
             throw new InterruptedException();
         }
 
-        lemmatizer.indexBundleOfPages(site, linkSet, pageLoaderInfoMap);
-        for (String item: linkSet) {
-            pageLoaderInfoMap.remove(item);
+        for (PageLoaderInfo pageLoaderInfo: pageList) {
+            if (pageLoaderInfo.getReplacedPageId() != null) {
+                removePage(context.getSite(), pageLoaderInfo.getReplacedPageId());
+            }
         }
+        lemmatizer.indexBundleOfPages(context.getSite(), pageList, context.getSiteIndexingData());
     }
 
     /**
-     * Непосредственное добавление ссылки во временное хранилище
+     * Непосредственное добавление ссылки в очередь обхода. Повторно встреченные ссылки очередь отбрасывает сама
      *
-     * @param url ссылка для добавления в хранилище
+     * @param url ссылка для добавления в очередь
+     * @param context контекст обхода текущего сайта
      */
-    private static void addLinkToLinksMap(UriComponents url) throws InterruptedException {
+    private static void addLinkToFrontier(UriComponents url, SiteCrawlContext context) throws InterruptedException {
         if (Thread.currentThread().isInterrupted()) {
             throw new InterruptedException();
         }
 
-        UriComponents result = rebuildLink(url);
-        if (!linksMap.containsKey(result.toString()))
-            linksMap.put(result.toString(), 0);
+        context.getFrontier().add(rebuildLink(url).toString());
     }
 
     /**
@@ -360,95 +588,6 @@ public class IndexingUtils {
         return UriComponentsBuilder.newInstance().scheme(url.getScheme()).host(url.getHost()).pathSegment(arr).build();
     }
 
-    /**
-     * Метод разделяет поровну непроверенные ссылки между потоками
-     */
-    public static synchronized Map<String, Integer> resetPartMap() throws InterruptedException {
-        if (Thread.currentThread().isInterrupted()) {
-            throw new InterruptedException();
-        }
-
-        Map<String, Integer> result = new HashMap<>();
-        List<String> unIndexingUrl = getUnIndexingUrl();
-        setDivider(unIndexingUrl);
-
-        int count = 0;
-        for (String item: unIndexingUrl) {
-            if (Thread.currentThread().isInterrupted()) {
-                throw new InterruptedException();
-            }
-
-            if (count >= divider) {
-                break;
-            }
-
-            result.put(item, linksMap.get(item));
-            linksMap.replace(item, 1);
-            count++;
-        }
-
-        checkPhaseItem();
-        return result;
-    }
-
-    /**
-     * Метод выбирает непроверенные ссылки из временного хранилища
-     */
-    public static List<String> getUnIndexingUrl() throws InterruptedException {
-        if (Thread.currentThread().isInterrupted()) {
-            throw new InterruptedException();
-        }
-
-        List<String> result = new ArrayList<>();
-        for (String item: linksMap.keySet()) {
-            if (Thread.currentThread().isInterrupted()) {
-                throw new InterruptedException();
-            }
-
-            if (linksMap.get(item) == 0) {
-                result.add(item);
-            }
-        }
-
-        return result;
-    }
-
-    /**
-     * Метод проверяет всем ли потокам выданы пачки ссылок на проверку. Если всем, значит наступает следующая итерация
-     * и надо будет определять новое кол-во ссылок на поток
-     */
-    private static void checkPhaseItem() throws InterruptedException {
-        if (Thread.currentThread().isInterrupted()) {
-            throw new InterruptedException();
-        }
-
-        if (phaseItem <= numberParserThreads) {
-            phaseItem++;
-        } else {
-            phaseItem = 0;
-            divider = 0;
-        }
-    }
-
-    /**
-     * Метод определяет количество ссылок на поток
-     *
-     * @param unIndexingUrl непроверенные ссылки
-     */
-    private static void setDivider(List<String> unIndexingUrl) throws InterruptedException {
-        if (Thread.currentThread().isInterrupted()) {
-            throw new InterruptedException();
-        }
-
-        if (unIndexingUrl.size() != 0 && divider == 0) {
-            if (unIndexingUrl.size() < numberParserThreads) {
-                divider = unIndexingUrl.size();
-            } else {
-                divider = unIndexingUrl.size() / numberParserThreads;
-            }
-        }
-    }
-
     public static boolean exceedingTimeLimit(Date begin, Long timeLimit) {
         Date now = new Date();
         long difference = now.getTime() - begin.getTime();
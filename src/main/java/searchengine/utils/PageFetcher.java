@@ -0,0 +1,150 @@
+package searchengine.utils;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import searchengine.parserData.FetchResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Загрузка страниц одним HTTP-запросом. Код ответа, заголовки и тело берутся из одного и того же ответа. Клиент общий
+ * для всех потоков и держит открытыми соединения с каждым хостом, поэтому при обходе сайта сокеты переиспользуются.
+ */
+public class PageFetcher {
+    private static final int timeout = 100000;
+    private static final HttpClient client = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofMillis(timeout))
+            .build();
+
+    /**
+     * Метод загружает страницу и разбирает ее, если ответ успешный и содержит html
+     *
+     * @param url ссылка на страницу
+     * @return результат загрузки
+     */
+    public static FetchResult fetch(String url) throws IOException, InterruptedException {
+        return fetch(url, null, null);
+    }
+
+    /**
+     * Метод выполняет условный запрос страницы. Если страница не изменилась с прошлой загрузки, сервер отвечает кодом
+     * 304 без тела, и документ в результате не заполняется
+     *
+     * @param url ссылка на страницу
+     * @param etag ETag из прошлого ответа или null
+     * @param lastModified Last-Modified из прошлого ответа или null
+     * @return результат загрузки
+     */
+    public static FetchResult fetch(String url, String etag, String lastModified) throws IOException, InterruptedException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException();
+        }
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(toUri(url))
+                .timeout(Duration.ofMillis(timeout))
+                .header("User-Agent", RandomUserAgent.getRandomUserAgent())
+                .header("Accept", "text/html,application/xhtml+xml;q=0.9,*/*;q=0.8")
+                .header("Accept-Encoding", "gzip");
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            builder.header("If-Modified-Since", lastModified);
+        }
+
+        HttpRequest request = builder.GET().build();
+        HttpResponse<InputStream> response = client.send(request, PageFetcher::handleBody);
+        String contentType = response.headers().firstValue("Content-Type").orElse("");
+        Document document = null;
+
+        if (response.body() != null) {
+            try (InputStream body = decode(response)) {
+                document = Jsoup.parse(body, getCharset(contentType), response.uri().toString());
+            }
+        }
+
+        return new FetchResult(response.uri().toString(), response.statusCode(), response.headers().map(), document);
+    }
+
+    /**
+     * Метод читает тело только успешного html-ответа. Тело остальных ответов вычитывается и отбрасывается, чтобы
+     * соединение вернулось в пул клиента, а не закрывалось с недочитанными данными
+     *
+     * @param info код ответа и заголовки
+     * @return подписчик на тело ответа; для отклоненных ответов тело будет равно null
+     */
+    private static HttpResponse.BodySubscriber<InputStream> handleBody(HttpResponse.ResponseInfo info) {
+        int status = info.statusCode();
+        String contentType = info.headers().firstValue("Content-Type").orElse("");
+        if (status >= 200 && status <= 299 && isHtml(contentType)) {
+            return HttpResponse.BodySubscribers.ofInputStream();
+        }
+
+        return HttpResponse.BodySubscribers.replacing(null);
+    }
+
+    private static InputStream decode(HttpResponse<InputStream> response) throws IOException {
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("");
+        if (encoding.equalsIgnoreCase("gzip")) {
+            return new GZIPInputStream(response.body());
+        }
+
+        return response.body();
+    }
+
+    private static boolean isHtml(String contentType) {
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return type.isEmpty() || type.startsWith("text/") || type.contains("html") || type.contains("xml");
+    }
+
+    /**
+     * Метод выбирает кодировку из заголовка Content-Type. Если ее там нет, то jsoup определит ее по мета-тегу страницы
+     */
+    private static String getCharset(String contentType) {
+        for (String item : contentType.split(";")) {
+            String param = item.trim();
+            if (param.toLowerCase(Locale.ROOT).startsWith("charset=")) {
+                return param.substring("charset=".length()).replace("\"", "").trim();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Метод кодирует в ссылке символы, недопустимые в URI (пробелы, кириллицу), не трогая уже закодированные
+     */
+    private static URI toUri(String url) throws IOException {
+        StringBuilder result = new StringBuilder();
+
+        for (int i = 0; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c > 127 || c == ' ' || c == '"' || c == '<' || c == '>' || c == '|' || c == '\\' || c == '^'
+                    || c == '`' || c == '{' || c == '}') {
+                int end = Character.isHighSurrogate(c) && i + 1 < url.length() ? i + 2 : i + 1;
+                for (byte b : url.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+                    result.append('%').append(String.format("%02X", b & 0xFF));
+                }
+                i = end - 1;
+            } else {
+                result.append(c);
+            }
+        }
+
+        try {
+            return URI.create(result.toString());
+        } catch (IllegalArgumentException e) {
+            throw new IOException(url + " is not a valid url.", e);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package searchengine.utils;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Список страниц леммы: отсортированные по возрастанию id страниц и rank леммы на каждой из них
+ */
+@Getter
+@RequiredArgsConstructor
+public class PostingList {
+    private final int[] pageIds;
+    private final float[] ranks;
+
+    public int size() {
+        return pageIds.length;
+    }
+}
@@ -0,0 +1,185 @@
+package searchengine.utils;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Операции над списками страниц лемм (posting lists). Список - это отсортированный по возрастанию массив id страниц
+ * без повторов. Пересечение идет по более короткому списку, а позиция в длинном ищется галопом: шаг поиска удваивается,
+ * пока не будет перешагнуто искомое значение, затем выполняется бинарный поиск. Поэтому время пересечения зависит
+ * в основном от длины короткого списка, а не от длины длинного.
+ */
+public final class PostingLists {
+
+    private PostingLists() {}
+
+    /**
+     * Метод пересекает два отсортированных списка id страниц
+     *
+     * @param first первый список
+     * @param second второй список
+     * @return отсортированный список id, которые есть в обоих списках
+     */
+    public static int[] intersect(int[] first, int[] second) {
+        int[] shortList = first.length <= second.length ? first : second;
+        int[] longList = shortList == first ? second : first;
+        int[] result = new int[shortList.length];
+        int count = 0;
+        int position = 0;
+
+        for (int value: shortList) {
+            position = gallop(longList, position, value);
+            if (position == longList.length) {
+                break;
+            }
+
+            if (longList[position] == value) {
+                result[count++] = value;
+                position++;
+            }
+        }
+
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Метод пересекает несколько списков, начиная с самых коротких. Как только пересечение становится пустым,
+     * оставшиеся списки не просматриваются.
+     *
+     * @param lists отсортированные списки id страниц
+     * @return отсортированный список id, которые есть во всех списках
+     */
+    public static int[] intersectAll(List<int[]> lists) {
+        if (lists.isEmpty()) {
+            return new int[0];
+        }
+
+        int[][] sortedLists = lists.toArray(new int[0][]);
+        Arrays.sort(sortedLists, Comparator.comparingInt(list -> list.length));
+        int[] result = sortedLists[0];
+
+        for (int i = 1; i < sortedLists.length && result.length > 0; i++) {
+            result = intersect(result, sortedLists[i]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Метод объединяет два отсортированных списка страниц одной леммы. Если страница есть в обоих списках, то берется
+     * rank из второго списка
+     *
+     * @param first первый список
+     * @param second второй, более новый список
+     * @return отсортированный список страниц из обоих списков
+     */
+    public static PostingList merge(PostingList first, PostingList second) {
+        int[] firstIds = first.getPageIds();
+        int[] secondIds = second.getPageIds();
+        int[] pageIds = new int[firstIds.length + secondIds.length];
+        float[] ranks = new float[pageIds.length];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+
+        while (i < firstIds.length || j < secondIds.length) {
+            if (j == secondIds.length || i < firstIds.length && firstIds[i] < secondIds[j]) {
+                pageIds[count] = firstIds[i];
+                ranks[count++] = first.getRanks()[i++];
+            } else {
+                if (i < firstIds.length && firstIds[i] == secondIds[j]) {
+                    i++;
+                }
+                pageIds[count] = secondIds[j];
+                ranks[count++] = second.getRanks()[j++];
+            }
+        }
+
+        return new PostingList(Arrays.copyOf(pageIds, count), Arrays.copyOf(ranks, count));
+    }
+
+    /**
+     * Метод убирает из списка страниц леммы удаленные страницы
+     *
+     * @param postingList список страниц леммы
+     * @param removedPageIds id удаленных страниц
+     * @return список без удаленных страниц
+     */
+    public static PostingList remove(PostingList postingList, Set<Integer> removedPageIds) {
+        int[] pageIds = new int[postingList.size()];
+        float[] ranks = new float[pageIds.length];
+        int count = 0;
+
+        for (int i = 0; i < postingList.size(); i++) {
+            if (!removedPageIds.contains(postingList.getPageIds()[i])) {
+                pageIds[count] = postingList.getPageIds()[i];
+                ranks[count++] = postingList.getRanks()[i];
+            }
+        }
+
+        return count == pageIds.length ? postingList
+                : new PostingList(Arrays.copyOf(pageIds, count), Arrays.copyOf(ranks, count));
+    }
+
+    /**
+     * Метод прибавляет к релевантности страниц rank леммы на этих страницах
+     *
+     * @param pageIds отсортированный список id страниц, каждая из которых есть в postingList
+     * @param postingList список страниц леммы
+     * @param relevance релевантность страниц, индексы совпадают с индексами pageIds
+     */
+    public static void addRanks(int[] pageIds, PostingList postingList, float[] relevance) {
+        int[] listIds = postingList.getPageIds();
+        int position = 0;
+
+        for (int i = 0; i < pageIds.length; i++) {
+            position = gallop(listIds, position, pageIds[i]);
+            if (position == listIds.length) {
+                break;
+            }
+
+            if (listIds[position] == pageIds[i]) {
+                relevance[i] += postingList.getRanks()[position];
+                position++;
+            }
+        }
+    }
+
+    /**
+     * Метод находит в отсортированном списке первую позицию не раньше from, значение в которой не меньше target
+     *
+     * @param list отсортированный список
+     * @param from позиция, с которой начинается поиск
+     * @param target искомое значение
+     * @return найденная позиция или длина списка, если все значения меньше target
+     */
+    static int gallop(int[] list, int from, int target) {
+        if (from >= list.length || list[from] >= target) {
+            return from;
+        }
+
+        int low = from;
+        int step = 1;
+        int high = from + step;
+        while (high < list.length && list[high] < target) {
+            low = high;
+            step <<= 1;
+            high = from + step;
+        }
+
+        low++;
+        high = Math.min(high, list.length);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (list[middle] < target) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+}
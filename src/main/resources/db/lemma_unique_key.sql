@@ -0,0 +1,42 @@
+-- Уникальный ключ леммы в пределах сайта.
+-- Выполняется один раз на существующей БД до запуска новой версии приложения. При параллельной индексации одна и та же
+-- лемма сайта могла быть сохранена несколькими записями, и Hibernate (ddl-auto: update) не сможет добавить ключ
+-- lemma_site_lemma, пока такие записи есть. Сначала столбцу lemma задается двоичное сравнение, чтобы формы с "е" и "ё"
+-- не считались одинаковыми, затем дубликаты сливаются в запись с наименьшим id и добавляется ключ.
+-- Страница учитывает лемму один раз, поэтому дубликаты относятся к разным страницам и их частоты складываются.
+
+ALTER TABLE lemma MODIFY lemma VARCHAR(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL;
+
+CREATE TABLE lemma_duplicate (
+    id INT NOT NULL,
+    keep_id INT NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+INSERT INTO lemma_duplicate (id, keep_id)
+SELECT l.id, k.keep_id
+FROM lemma l
+JOIN (SELECT site_id, lemma, MIN(id) AS keep_id FROM lemma GROUP BY site_id, lemma HAVING COUNT(*) > 1) k
+    ON k.site_id = l.site_id AND k.lemma = l.lemma AND l.id <> k.keep_id;
+
+UPDATE lemma l
+JOIN (SELECT d.keep_id, SUM(dl.frequency) AS frequency
+      FROM lemma_duplicate d JOIN lemma dl ON dl.id = d.id
+      GROUP BY d.keep_id) s ON s.keep_id = l.id
+SET l.frequency = l.frequency + s.frequency;
+
+UPDATE word_index i JOIN lemma_duplicate d ON d.id = i.lemma_id SET i.lemma_id = d.keep_id;
+
+DELETE l FROM lemma l JOIN lemma_duplicate d ON d.id = l.id;
+
+DROP TABLE lemma_duplicate;
+
+-- Ключ добавляется, только если его еще нет: на БД без дубликатов его мог создать Hibernate.
+SET @add_key = (SELECT IF(COUNT(*) = 0,
+        'ALTER TABLE lemma ADD CONSTRAINT lemma_site_lemma UNIQUE (site_id, lemma)',
+        'DO 0')
+    FROM information_schema.STATISTICS
+    WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'lemma' AND INDEX_NAME = 'lemma_site_lemma');
+PREPARE add_key FROM @add_key;
+EXECUTE add_key;
+DEALLOCATE PREPARE add_key;
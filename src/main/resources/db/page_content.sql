@@ -0,0 +1,27 @@
+-- Перенос содержимого страниц в таблицу page_content.
+-- Выполняется один раз на существующей БД до запуска новой версии приложения. Таблица page_content и столбец
+-- page.content_id создаются так же, как их создал бы Hibernate (ddl-auto: update), затем html и текст страниц
+-- переносятся в новую таблицу, а прежние столбцы удаляются: иначе вставка страниц упадет на NOT NULL столбце content.
+-- Если в БД нет столбца page.text (она создана до сохранения текста страниц), вместо p.text указывается NULL:
+-- текст таких страниц извлекается из html при поиске.
+
+CREATE TABLE IF NOT EXISTS page_content (
+    id INT NOT NULL AUTO_INCREMENT,
+    content MEDIUMTEXT NOT NULL,
+    text MEDIUMTEXT,
+    page_id INT,
+    PRIMARY KEY (id),
+    KEY page_content_page (page_id)
+) ENGINE = InnoDB;
+
+ALTER TABLE page ADD COLUMN content_id INT;
+
+INSERT INTO page_content (content, text, page_id)
+SELECT p.content, p.text, p.id FROM page p;
+
+UPDATE page p JOIN page_content c ON c.page_id = p.id SET p.content_id = c.id;
+
+ALTER TABLE page_content DROP INDEX page_content_page, DROP COLUMN page_id;
+ALTER TABLE page ADD CONSTRAINT page_content_fk FOREIGN KEY (content_id) REFERENCES page_content (id);
+ALTER TABLE page ADD UNIQUE KEY page_content_id (content_id);
+ALTER TABLE page DROP COLUMN content, DROP COLUMN text;
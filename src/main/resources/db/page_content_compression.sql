@@ -0,0 +1,6 @@
+-- Хранение содержимого страниц в сжатом виде.
+-- Выполняется один раз на существующей БД после page_content.sql. Столбцы переводятся в MEDIUMBLOB, при этом
+-- MySQL сохраняет в них прежние строки в кодировке UTF-8 без изменений. Такие строки не имеют сигнатуры сжатия
+-- и читаются приложением как есть, а сжатыми записываются при следующей индексации страницы.
+
+ALTER TABLE page_content MODIFY content MEDIUMBLOB NOT NULL, MODIFY text MEDIUMBLOB;
@@ -0,0 +1,17 @@
+-- Поколения индекса сайтов.
+-- Выполняется один раз на существующей БД. Столбец site.active Hibernate добавил бы и сам (ddl-auto: update), а
+-- уникальный индекс по path заменяется вручную: новое поколение сайта хранит те же пути страниц, что и текущее,
+-- поэтому путь уникален только в пределах записи сайта.
+
+-- Столбец добавляется, только если его еще нет: приложение с ddl-auto: update могло создать его раньше.
+SET @add_active = (SELECT IF(COUNT(*) = 0,
+        'ALTER TABLE site ADD COLUMN active BOOLEAN NOT NULL DEFAULT TRUE',
+        'DO 0')
+    FROM information_schema.COLUMNS
+    WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'site' AND COLUMN_NAME = 'active');
+PREPARE add_active FROM @add_active;
+EXECUTE add_active;
+DEALLOCATE PREPARE add_active;
+
+DROP INDEX Page_table_path_ind ON page;
+CREATE UNIQUE INDEX Page_table_path_ind ON page (site_id, path(255));
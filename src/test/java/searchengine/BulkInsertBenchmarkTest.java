@@ -0,0 +1,109 @@
+package searchengine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import searchengine.model.*;
+import searchengine.repository.IndexRepository;
+import searchengine.repository.LemmaRepository;
+import searchengine.repository.PageRepository;
+import searchengine.repository.SiteRepository;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Сравнение скорости записи word_index и lemma через saveAll() и через пакетные INSERT.
+ * Результаты выводятся в консоль в строках/сек. Тест исключен из обычного запуска и требует тестовой базы MySQL.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+public class BulkInsertBenchmarkTest {
+    private static final int rowCount = 20000;
+    @Autowired
+    private SiteRepository siteRepository;
+    @Autowired
+    private PageRepository pageRepository;
+    @Autowired
+    private LemmaRepository lemmaRepository;
+    @Autowired
+    private IndexRepository indexRepository;
+    private Site site;
+    private Page page;
+
+    @BeforeEach
+    public void initialization() {
+        site = siteRepository.save(new Site(SiteStatus.INDEXED, new Date(), null, "https://www.skillbox.ru", "Skillbox"));
+        page = pageRepository.save(new Page(site, "https://www.skillbox.ru/benchmark", 200, "<html></html>"));
+    }
+
+    @AfterEach
+    public void clear() {
+        indexRepository.deleteAllInBatch();
+        lemmaRepository.deleteAllInBatch();
+        pageRepository.deleteAll();
+        siteRepository.deleteAll();
+    }
+
+    @Test
+    public void lemmaInsertTest() {
+        long saveAllTime = measure(() -> lemmaRepository.saveAll(createLemmas("saveall")));
+        List<Lemma> bulkLemmas = createLemmas("bulk");
+        long bulkTime = measure(() -> lemmaRepository.bulkInsert(bulkLemmas));
+
+        bulkLemmas.forEach(lemma -> assertNotNull(lemma.getId()));
+        assertEquals(rowCount * 2L, lemmaRepository.count());
+        print("lemma", saveAllTime, bulkTime);
+        assertTrue(bulkTime < saveAllTime, "bulkInsert is not faster than saveAll");
+    }
+
+    @Test
+    public void indexInsertTest() {
+        List<Lemma> lemmas = createLemmas("index");
+        lemmaRepository.bulkInsert(lemmas);
+
+        long saveAllTime = measure(() -> indexRepository.saveAll(createIndexes(lemmas)));
+        long bulkTime = measure(() -> indexRepository.bulkInsert(createIndexes(lemmas)));
+
+        assertEquals(rowCount * 2L, indexRepository.count());
+        print("word_index", saveAllTime, bulkTime);
+        assertTrue(bulkTime < saveAllTime, "bulkInsert is not faster than saveAll");
+    }
+
+    private List<Lemma> createLemmas(String prefix) {
+        List<Lemma> lemmas = new ArrayList<>();
+        for (int i = 0; i < rowCount; i++) {
+            lemmas.add(new Lemma(site, prefix + i, 1));
+        }
+        return lemmas;
+    }
+
+    private List<Index> createIndexes(List<Lemma> lemmas) {
+        List<Index> indexes = new ArrayList<>();
+        for (Lemma lemma : lemmas) {
+            indexes.add(new Index(page, lemma, 1));
+        }
+        return indexes;
+    }
+
+    private long measure(Runnable action) {
+        long begin = System.nanoTime();
+        action.run();
+        return Math.max(1, (System.nanoTime() - begin) / 1_000_000);
+    }
+
+    private void print(String table, long saveAllTime, long bulkTime) {
+        System.out.println(table + ": saveAll " + rowCount * 1000L / saveAllTime + " rows/s (" + saveAllTime + " ms), "
+                + "bulkInsert " + rowCount * 1000L / bulkTime + " rows/s (" + bulkTime + " ms)");
+    }
+}
@@ -0,0 +1,68 @@
+package searchengine;
+
+import org.jsoup.Jsoup;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import searchengine.model.CompressedStringConverter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Сравнение объема хранимого html и текста страниц до и после сжатия и стоимости распаковки текста в пути
+ * построения сниппетов. Тест исключен из обычного запуска.
+ */
+@Tag("benchmark")
+public class CompressedStringConverterBenchmarkTest {
+    private static final int pageCount = 200;
+    private final CompressedStringConverter converter = new CompressedStringConverter();
+
+    @Test
+    public void compressionBenchmarkTest() {
+        Random random = new Random(42);
+        String[] texts = new String[pageCount];
+        byte[][] compressedTexts = new byte[pageCount][];
+        long rawBytes = 0;
+        long storedBytes = 0;
+
+        for (int i = 0; i < pageCount; i++) {
+            String html = CompressedStringConverterTest.createHtml(random, 300 + random.nextInt(1500));
+            texts[i] = Jsoup.parse(html).text();
+            byte[] compressedHtml = converter.convertToDatabaseColumn(html);
+            compressedTexts[i] = converter.convertToDatabaseColumn(texts[i]);
+            rawBytes += html.getBytes(StandardCharsets.UTF_8).length + texts[i].getBytes(StandardCharsets.UTF_8).length;
+            storedBytes += compressedHtml.length + compressedTexts[i].length;
+        }
+
+        long compressedSnippetTime = measure(() -> {
+            for (byte[] text: compressedTexts) {
+                converter.convertToEntityAttribute(text).toLowerCase(Locale.ROOT).indexOf("леопард");
+            }
+        });
+
+        for (int i = 0; i < pageCount; i++) {
+            assertEquals(texts[i], converter.convertToEntityAttribute(compressedTexts[i]));
+        }
+        assertTrue(storedBytes < rawBytes / 2, "stored " + storedBytes + " of " + rawBytes + " bytes");
+        assertTrue(compressedSnippetTime / pageCount < 1_000_000,
+                "snippet text takes " + compressedSnippetTime / pageCount / 1000 + " us per page");
+    }
+
+    /**
+     * @return среднее время выполнения в нс
+     */
+    private static long measure(Runnable action) {
+        for (int i = 0; i < 3; i++) {
+            action.run();
+        }
+        long begin = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            action.run();
+        }
+        return (System.nanoTime() - begin) / 10;
+    }
+}
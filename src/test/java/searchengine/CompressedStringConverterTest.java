@@ -0,0 +1,59 @@
+package searchengine;
+
+import org.junit.jupiter.api.Test;
+import searchengine.model.CompressedStringConverter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressedStringConverterTest {
+    private final CompressedStringConverter converter = new CompressedStringConverter();
+
+    @Test
+    public void roundTripTest() {
+        String html = createHtml(new Random(1), 200);
+        byte[] compressed = converter.convertToDatabaseColumn(html);
+
+        assertTrue(CompressedStringConverter.isCompressed(compressed));
+        assertTrue(compressed.length < html.getBytes(StandardCharsets.UTF_8).length / 2);
+        assertEquals(html, converter.convertToEntityAttribute(compressed));
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+        assertEquals("", converter.convertToEntityAttribute(converter.convertToDatabaseColumn("")));
+    }
+
+    @Test
+    public void shortAndLegacyValuesTest() {
+        byte[] shortValue = converter.convertToDatabaseColumn("Курс");
+        assertFalse(CompressedStringConverter.isCompressed(shortValue));
+        assertEquals("Курс", converter.convertToEntityAttribute(shortValue));
+
+        String legacy = "<html><body>Страница, сохраненная до сжатия</body></html>";
+        assertEquals(legacy, converter.convertToEntityAttribute(legacy.getBytes(StandardCharsets.UTF_8)));
+
+        String magic = "\u001FPC\u0001abcd";
+        assertEquals(magic, converter.convertToEntityAttribute(converter.convertToDatabaseColumn(magic)));
+    }
+
+    static String createHtml(Random random, int wordCount) {
+        String[] words = {"Повторное", "появление", "леопарда", "в", "Осетии", "позволяет", "предположить", "что",
+                "леопард", "постоянно", "обитает", "некоторых", "районах", "Северного", "Кавказа", "курсы", "обучение",
+                "программирование", "дизайн", "маркетинг", "управление", "профессия", "студент", "преподаватель"};
+        StringBuilder html = new StringBuilder("<!doctype html><html><head><meta charset=\"utf-8\"><title>")
+                .append(words[random.nextInt(words.length)]).append("</title></head><body><nav>");
+        for (int i = 0; i < 30; i++) {
+            html.append("<a class=\"menu__link\" href=\"/courses/").append(random.nextInt(1000)).append("/\">")
+                    .append(words[random.nextInt(words.length)]).append("</a>");
+        }
+        html.append("</nav><main>");
+        for (int i = 0; i < wordCount; i++) {
+            if (i % 40 == 0) {
+                html.append(i == 0 ? "" : "</p>").append("<p class=\"text\">");
+            }
+            html.append(words[random.nextInt(words.length)]).append(random.nextInt(8) == 0 ? ", " : " ");
+        }
+        return html.append("</p></main></body></html>").toString();
+    }
+}
@@ -0,0 +1,79 @@
+package searchengine;
+
+import org.junit.jupiter.api.Test;
+import searchengine.parserData.CrawlFrontier;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CrawlFrontierTest {
+
+    @Test
+    public void addSkipsSeenUrlsTest() throws InterruptedException {
+        CrawlFrontier frontier = new CrawlFrontier();
+
+        assertTrue(frontier.add("https://www.skillbox.ru"));
+        assertFalse(frontier.add("https://www.skillbox.ru"));
+        assertEquals(1, frontier.getPendingCount());
+        assertEquals("https://www.skillbox.ru", frontier.poll(10, TimeUnit.MILLISECONDS));
+        assertNull(frontier.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void completionAfterLastUrlTest() throws InterruptedException {
+        CrawlFrontier frontier = new CrawlFrontier();
+        frontier.add("https://www.skillbox.ru");
+
+        assertEquals("https://www.skillbox.ru", frontier.poll(10, TimeUnit.MILLISECONDS));
+        frontier.add("https://www.skillbox.ru/courses");
+        frontier.complete();
+        assertFalse(frontier.isComplete());
+
+        assertEquals("https://www.skillbox.ru/courses", frontier.poll(10, TimeUnit.MILLISECONDS));
+        frontier.complete();
+        assertTrue(frontier.awaitCompletion(10, TimeUnit.MILLISECONDS));
+        assertFalse(frontier.add("https://www.skillbox.ru/blog"));
+    }
+
+    @Test
+    public void concurrentWorkersVisitEveryUrlOnceTest() throws InterruptedException {
+        CrawlFrontier frontier = new CrawlFrontier();
+        AtomicInteger visited = new AtomicInteger();
+        int pageCount = 10000;
+        frontier.add("0");
+
+        ExecutorService service = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            service.submit(() -> {
+                try {
+                    while (!frontier.isComplete()) {
+                        String url = frontier.poll(50, TimeUnit.MILLISECONDS);
+                        if (url == null) {
+                            continue;
+                        }
+
+                        int page = Integer.parseInt(url);
+                        for (int child = page * 2 + 1; child <= page * 2 + 2 && child < pageCount; child++) {
+                            frontier.add(String.valueOf(child));
+                            frontier.add(String.valueOf(page));
+                        }
+                        visited.incrementAndGet();
+                        frontier.complete();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        assertTrue(frontier.awaitCompletion(10, TimeUnit.SECONDS));
+        service.shutdown();
+        assertTrue(service.awaitTermination(1, TimeUnit.SECONDS));
+        assertEquals(pageCount, visited.get());
+        assertEquals(pageCount, frontier.getSeenCount());
+    }
+}
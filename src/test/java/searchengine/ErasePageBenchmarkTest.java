@@ -0,0 +1,87 @@
+package searchengine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import searchengine.model.*;
+import searchengine.repository.IndexRepository;
+import searchengine.repository.LemmaRepository;
+import searchengine.repository.PageRepository;
+import searchengine.repository.SiteRepository;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Удаление страницы с большим количеством лемм перед ее повторной индексацией. Индексы другой страницы с теми же
+ * леммами должны остаться на месте. Время удаления выводится в консоль. Тест исключен из обычного запуска
+ * и требует тестовой базы MySQL.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+public class ErasePageBenchmarkTest {
+    private static final int lemmaCount = 5000;
+    @Autowired
+    private SiteRepository siteRepository;
+    @Autowired
+    private PageRepository pageRepository;
+    @Autowired
+    private LemmaRepository lemmaRepository;
+    @Autowired
+    private IndexRepository indexRepository;
+    private Site site;
+    private Page erasedPage;
+    private Page otherPage;
+    private List<Lemma> lemmas;
+
+    @BeforeEach
+    public void initialization() {
+        site = siteRepository.save(new Site(SiteStatus.INDEXED, new Date(), null, "https://www.skillbox.ru", "Skillbox"));
+        erasedPage = pageRepository.save(new Page(site, "https://www.skillbox.ru/erased", 200, "<html></html>"));
+        otherPage = pageRepository.save(new Page(site, "https://www.skillbox.ru/other", 200, "<html></html>"));
+
+        lemmas = new ArrayList<>();
+        for (int i = 0; i < lemmaCount; i++) {
+            lemmas.add(new Lemma(site, "лемма" + i, 2));
+        }
+        lemmaRepository.bulkInsert(lemmas);
+
+        List<Index> indexes = new ArrayList<>();
+        for (Lemma lemma : lemmas) {
+            indexes.add(new Index(erasedPage, lemma, 1));
+            indexes.add(new Index(otherPage, lemma, 1));
+        }
+        indexRepository.bulkInsert(indexes);
+    }
+
+    @AfterEach
+    public void clear() {
+        indexRepository.deleteAllInBatch();
+        lemmaRepository.deleteAllInBatch();
+        pageRepository.deleteAll();
+        siteRepository.deleteAll();
+    }
+
+    @Test
+    public void erasePageTest() {
+        long begin = System.nanoTime();
+        int deleted = pageRepository.erasePage(erasedPage.getId());
+        long time = (System.nanoTime() - begin) / 1_000_000;
+
+        assertEquals(lemmaCount, deleted);
+        assertTrue(pageRepository.findById(erasedPage.getId()).isEmpty());
+        assertEquals(lemmaCount, indexRepository.findByPageId(otherPage).size());
+        assertTrue(lemmaRepository.getListLemmaBySite(site).stream().allMatch(lemma -> lemma.getFrequency() == 1));
+        System.out.println("erasePage: " + lemmaCount + " lemmas, " + time + " ms");
+        assertTrue(time < 2000, "erasePage took " + time + " ms");
+    }
+}
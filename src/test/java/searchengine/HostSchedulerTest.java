@@ -0,0 +1,30 @@
+package searchengine;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import searchengine.parser.HostScheduler;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class HostSchedulerTest {
+
+    @ParameterizedTest
+    @MethodSource("robotsProvider")
+    public void parseCrawlDelayTest(String robots, long expected) {
+        assertEquals(expected, HostScheduler.parseCrawlDelay(robots));
+    }
+
+    private static Stream<Arguments> robotsProvider() {
+        return Stream.of(
+                Arguments.of("", 0L),
+                Arguments.of("User-agent: *\nDisallow: /admin\nCrawl-delay: 2", 2000L),
+                Arguments.of("User-agent: Yandex\nCrawl-delay: 5\n\nUser-agent: *\nCrawl-delay: 0.5", 500L),
+                Arguments.of("User-agent: Googlebot\nUser-agent: *\nCrawl-delay: 3 # seconds", 3000L),
+                Arguments.of("User-agent: Yandex\nCrawl-delay: 5", 0L),
+                Arguments.of("User-agent: *\nCrawl-delay: fast", 0L)
+        );
+    }
+}
@@ -0,0 +1,53 @@
+package searchengine;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import searchengine.parserData.PageContent;
+import searchengine.utils.HtmlExtractor;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class HtmlExtractorTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "<html><head><title> Курсы  Skillbox </title><style>p {color: red}</style></head><body>"
+                    + "<h1>Обучение</h1><p>Повторное <b>появление</b>\n леопарда<br>в Осетии</p>"
+                    + "<script>var text = 'скрипт';</script><a href=\"/courses\">Курсы</a> и "
+                    + "<a href=\"https://www.skillbox.ru/blog\">блог</a><a>без ссылки</a>"
+                    + "<pre>  код\n  программы</pre><div>текст<div>вложенный</div>после</div></body></html>",
+            "<p>Без заголовка</p>текст после абзаца<ul><li>первый</li><li>второй</li></ul>",
+            ""
+    })
+    public void extractTest(String html) {
+        Document document = Jsoup.parse(html, "https://www.skillbox.ru");
+        PageContent content = HtmlExtractor.extract(document);
+
+        assertEquals(document.text(), content.getText());
+        assertEquals(document.title(), content.getTitle());
+        assertEquals(document.select("a[href]").stream().map(item -> item.attr("href")).toList(),
+                content.getLinks());
+        assertEquals(document.html(), content.getHtml());
+    }
+
+    @Test
+    public void contentHashTest() {
+        PageContent content = HtmlExtractor.extract(Jsoup.parse(
+                "<html><head><title>Курсы</title></head><body><p>Обучение <b>онлайн</b></p></body></html>"));
+        PageContent markupChanged = HtmlExtractor.extract(Jsoup.parse(
+                "<html><head><title>Курсы</title><script>var id = 2;</script></head><body class=\"new\">"
+                        + "<div>Обучение <i>онлайн</i></div></body></html>"));
+        PageContent textChanged = HtmlExtractor.extract(Jsoup.parse(
+                "<html><head><title>Курсы</title></head><body><p>Обучение очно</p></body></html>"));
+
+        assertEquals(64, content.getContentHash().length());
+        assertEquals(content.getContentHash(), markupChanged.getContentHash());
+        assertNotEquals(content.getContentHash(), textChanged.getContentHash());
+        assertNotEquals(HtmlExtractor.getContentHash("а", "б"), HtmlExtractor.getContentHash("", "аб"));
+    }
+}
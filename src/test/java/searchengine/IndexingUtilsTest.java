@@ -9,6 +9,7 @@ import org.junit.jupiter.params.provider.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
 import searchengine.config.SitesList;
 import searchengine.model.Page;
 import searchengine.model.Site;
@@ -110,6 +111,7 @@ public class IndexingUtilsTest {
     @ParameterizedTest
     @NullSource
     @ArgumentsSource(PagesArgumentsProvider.class)
+    @Transactional
     public void addPageTest(Page page) throws InterruptedException {
         Site site = siteRepository.save(new Site(SiteStatus.INDEXED, new Date(), null, "https://www.skillbox.ru", "Skillbox"));
         if (page != null && !page.equals(new Page())) {
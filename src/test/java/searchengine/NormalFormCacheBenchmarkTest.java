@@ -0,0 +1,85 @@
+package searchengine;
+
+import org.apache.lucene.morphology.LuceneMorphology;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import searchengine.lemmas.Lemmatizer;
+import searchengine.lemmas.NormalFormCache;
+import searchengine.model.Page;
+import searchengine.repository.PageRepository;
+import searchengine.utils.HtmlExtractor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * Сравнение скорости получения нормальных форм слов проиндексированных страниц напрямую из словаря морфологии
+ * и через кеш нормальных форм. Результаты выводятся в консоль в словах/сек. Тест исключен из обычного запуска
+ * и требует тестовой базы MySQL с проиндексированными страницами.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+public class NormalFormCacheBenchmarkTest {
+    private static final int pageCount = 500;
+    @Autowired
+    private PageRepository pageRepository;
+    @Autowired
+    private Lemmatizer lemmatizer;
+    @Autowired
+    private LuceneMorphology luceneMorph;
+
+    @Test
+    @Transactional(readOnly = true)
+    public void normalFormLookupTest() {
+        List<String> words = new ArrayList<>();
+        for (Page page: pageRepository.findAll(PageRequest.of(0, pageCount))) {
+            for (String word: lemmatizer.getListWords(HtmlExtractor.getText(page))) {
+                if (!word.isEmpty()) {
+                    words.add(word);
+                }
+            }
+        }
+        assumeFalse(words.isEmpty(), "No indexed pages in DB");
+
+        NormalFormCache uncached = new NormalFormCache(luceneMorph, 0);
+        NormalFormCache cached = new NormalFormCache(luceneMorph, 100000);
+        long uncachedTime = measure(uncached, words);
+        long cachedTime = measure(cached, words);
+
+        for (String word: words.subList(0, Math.min(words.size(), 10000))) {
+            try {
+                assertEquals(uncached.getWordForm(word).getNormalForm(), cached.getWordForm(word).getNormalForm());
+            } catch (RuntimeException e) {
+                // слово отсутствует в словаре
+            }
+        }
+        System.out.println("normal forms: " + words.size() + " words, without cache "
+                + words.size() * 1000L / uncachedTime + " words/s (" + uncachedTime + " ms), with cache "
+                + words.size() * 1000L / cachedTime + " words/s (" + cachedTime + " ms), hit rate "
+                + cached.getHitRate() + ", cached words " + cached.size());
+        assertTrue(cached.getHitRate() > 0.5, "hit rate is too low: " + cached.getHitRate());
+        assertTrue(cachedTime < uncachedTime, "cache is not faster than the dictionary");
+    }
+
+    private long measure(NormalFormCache cache, List<String> words) {
+        long begin = System.nanoTime();
+        for (String word: words) {
+            try {
+                cache.getWordForm(word);
+            } catch (RuntimeException e) {
+                // слова, которых нет в словаре, пропускаются так же, как при индексации
+            }
+        }
+        return Math.max(1, (System.nanoTime() - begin) / 1_000_000);
+    }
+}
@@ -0,0 +1,60 @@
+package searchengine;
+
+import org.apache.lucene.morphology.LuceneMorphology;
+import org.apache.lucene.morphology.russian.RussianLuceneMorphology;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import searchengine.lemmas.NormalFormCache;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NormalFormCacheTest {
+    private static LuceneMorphology luceneMorph;
+
+    @BeforeAll
+    public static void initialization() throws IOException {
+        luceneMorph = new RussianLuceneMorphology();
+    }
+
+    @Test
+    public void wordFormTest() {
+        NormalFormCache cache = new NormalFormCache(luceneMorph, 1000);
+
+        NormalFormCache.WordForm leopard = cache.getWordForm("леопарда");
+        assertEquals("леопард", leopard.getNormalForm());
+        assertFalse(leopard.isService());
+        assertTrue(cache.getWordForm("и").isService());
+        assertSame(leopard, cache.getWordForm("леопарда"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void boundedSizeTest() {
+        NormalFormCache cache = new NormalFormCache(luceneMorph, 32);
+        String letters = "абвгдежзиклмнопрстуф";
+
+        for (int i = 0; i < letters.length(); i++) {
+            for (int j = 0; j < letters.length(); j++) {
+                cache.getWordForm("кот" + letters.charAt(i) + letters.charAt(j) + "а");
+            }
+        }
+        assertTrue(cache.size() <= 32);
+
+        cache.getWordForm("котика");
+        cache.getWordForm("котика");
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void disabledCacheTest() {
+        NormalFormCache cache = new NormalFormCache(luceneMorph, 0);
+
+        assertEquals("кошка", cache.getWordForm("кошки").getNormalForm());
+        assertEquals("кошка", cache.getWordForm("кошки").getNormalForm());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getHitRate());
+    }
+}
@@ -0,0 +1,63 @@
+package searchengine;
+
+import org.junit.jupiter.api.Test;
+import searchengine.utils.PostingLists;
+
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+public class PostingListsTest {
+
+    @Test
+    public void intersectTest() {
+        int[] first = {1, 3, 5, 7, 9, 100, 200};
+        int[] second = {2, 3, 4, 9, 150, 200, 300, 400};
+
+        assertArrayEquals(new int[]{3, 9, 200}, PostingLists.intersect(first, second));
+        assertArrayEquals(new int[]{3, 9, 200}, PostingLists.intersect(second, first));
+        assertArrayEquals(new int[0], PostingLists.intersect(first, new int[0]));
+        assertArrayEquals(new int[0], PostingLists.intersect(new int[]{1, 2}, new int[]{3, 4}));
+    }
+
+    @Test
+    public void intersectAllTest() {
+        int[] common = {10, 20, 30};
+        List<int[]> lists = List.of(
+                new int[]{1, 10, 15, 20, 25, 30, 35},
+                new int[]{10, 20, 30},
+                new int[]{5, 10, 20, 30, 40});
+
+        assertArrayEquals(common, PostingLists.intersectAll(lists));
+        assertArrayEquals(new int[0], PostingLists.intersectAll(List.of()));
+        assertArrayEquals(new int[0], PostingLists.intersectAll(List.of(common, new int[0], common)));
+    }
+
+    @Test
+    public void intersectMatchesNaiveIntersectionTest() {
+        Random random = new Random(42);
+
+        for (int attempt = 0; attempt < 200; attempt++) {
+            TreeSet<Integer> first = randomSet(random, random.nextInt(50), 1000);
+            TreeSet<Integer> second = randomSet(random, random.nextInt(2000), 5000);
+            TreeSet<Integer> expected = new TreeSet<>(first);
+            expected.retainAll(second);
+
+            assertArrayEquals(toArray(expected), PostingLists.intersect(toArray(first), toArray(second)));
+        }
+    }
+
+    private TreeSet<Integer> randomSet(Random random, int size, int bound) {
+        TreeSet<Integer> result = new TreeSet<>();
+        for (int i = 0; i < size; i++) {
+            result.add(random.nextInt(bound));
+        }
+        return result;
+    }
+
+    private int[] toArray(TreeSet<Integer> set) {
+        return set.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,112 @@
+package searchengine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import searchengine.dto.search.SearchRequest;
+import searchengine.dto.search.SearchResponse;
+import searchengine.lemmas.Lemmatizer;
+import searchengine.model.Page;
+import searchengine.model.Site;
+import searchengine.model.SiteStatus;
+import searchengine.repository.IndexRepository;
+import searchengine.repository.LemmaRepository;
+import searchengine.repository.PageRepository;
+import searchengine.repository.SiteRepository;
+import searchengine.services.SearchService;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Параллельные поисковые запросы должны возвращать те же результаты, что и последовательные.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class SearchConcurrencyTest {
+    private static final String siteUrl = "https://www.skillbox.ru";
+    private static final List<String> words = List.of("кошка", "собака", "птица", "рыба");
+    private static final List<String> queries = List.of("кошка", "собака", "кошка собака", "птица рыба",
+            "кошка собака птица", "рыба");
+    private static final int pageCount = 60;
+    private static final int threadCount = 32;
+    private static final int requestCount = 600;
+    @Autowired
+    private SiteRepository siteRepository;
+    @Autowired
+    private PageRepository pageRepository;
+    @Autowired
+    private LemmaRepository lemmaRepository;
+    @Autowired
+    private IndexRepository indexRepository;
+    @Autowired
+    private Lemmatizer lemmatizer;
+    @Autowired
+    private SearchService searchService;
+
+    @BeforeEach
+    public void initialization() throws InterruptedException {
+        Site site = siteRepository.save(new Site(SiteStatus.INDEXED, new Date(), null, siteUrl, "Skillbox"));
+
+        for (int i = 1; i < pageCount; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int word = 0; word < words.size(); word++) {
+                if ((i & (1 << word)) != 0) {
+                    text.append((words.get(word) + " ").repeat(i % 3 + 1));
+                }
+            }
+
+            String html = "<html><head><title>Страница " + i + "</title></head><body>" + text + "</body></html>";
+            Page page = pageRepository.save(new Page(site, siteUrl + "/page" + i, 200, html));
+            lemmatizer.addLemmas(site, page);
+        }
+    }
+
+    @AfterEach
+    public void clear() {
+        indexRepository.deleteAllInBatch();
+        lemmaRepository.deleteAllInBatch();
+        pageRepository.deleteAll();
+        siteRepository.deleteAll();
+    }
+
+    @Test
+    public void concurrentSearchTest() throws Exception {
+        Map<String, SearchResponse> expected = new HashMap<>();
+        for (String query: queries) {
+            expected.put(query, search(query));
+            assertNotEquals(0, expected.get(query).getCount());
+        }
+
+        ExecutorService service = Executors.newFixedThreadPool(threadCount);
+        List<Future<SearchResponse>> results = new ArrayList<>();
+        for (int i = 0; i < requestCount; i++) {
+            String query = queries.get(i % queries.size());
+            results.add(service.submit(() -> search(query)));
+        }
+
+        for (int i = 0; i < requestCount; i++) {
+            assertEquals(expected.get(queries.get(i % queries.size())), results.get(i).get());
+        }
+        service.shutdown();
+        assertTrue(service.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    private SearchResponse search(String query) {
+        return (SearchResponse) searchService.performSearch(new SearchRequest(query, siteUrl, 0, 20)).getBody();
+    }
+}
@@ -0,0 +1,58 @@
+package searchengine;
+
+import org.junit.jupiter.api.Test;
+import searchengine.config.SearchConfig;
+import searchengine.dto.search.SearchContext;
+import searchengine.services.impl.SearchResultCache;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchResultCacheTest {
+    private final SearchContext context = new SearchContext(Map.of(1, 2f),
+            Map.of("https://www.skillbox.ru", List.of("курс")));
+
+    @Test
+    public void keyIgnoresLemmaOrderTest() {
+        assertEquals(SearchResultCache.createKey(null, List.of("курс", "программирование")),
+                SearchResultCache.createKey(null, List.of("программирование", "курс")));
+        assertNotEquals(SearchResultCache.createKey(null, List.of("курс")),
+                SearchResultCache.createKey("https://www.skillbox.ru", List.of("курс")));
+    }
+
+    @Test
+    public void generationInvalidatesEntryTest() {
+        SearchResultCache cache = new SearchResultCache(new SearchConfig(2000, 100, 10, 600));
+        cache.put("key", 1, context);
+
+        assertSame(context, cache.get("key", 1));
+        assertNull(cache.get("key", 2));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryEvictedTest() {
+        SearchResultCache cache = new SearchResultCache(new SearchConfig(2000, 100, 2, 600));
+        cache.put("first", 0, context);
+        cache.put("second", 0, context);
+        cache.get("first", 0);
+        cache.put("third", 0, context);
+
+        assertNotNull(cache.get("first", 0));
+        assertNull(cache.get("second", 0));
+        assertNotNull(cache.get("third", 0));
+    }
+
+    @Test
+    public void expiredEntryRemovedTest() throws InterruptedException {
+        SearchResultCache cache = new SearchResultCache(new SearchConfig(2000, 100, 10, 0));
+        cache.put("key", 0, context);
+
+        Thread.sleep(5);
+        assertNull(cache.get("key", 0));
+    }
+}
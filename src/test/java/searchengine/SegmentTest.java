@@ -0,0 +1,188 @@
+package searchengine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import searchengine.config.SegmentConfig;
+import searchengine.model.Site;
+import searchengine.model.SiteStatus;
+import searchengine.segment.SegmentIndex;
+import searchengine.segment.SegmentReader;
+import searchengine.segment.SegmentWriter;
+import searchengine.segment.TieredMergePolicy;
+import searchengine.utils.PostingList;
+import searchengine.utils.PostingLists;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SegmentTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void writeAndReadSegmentTest() throws IOException {
+        Path file = directory.resolve("1-1.seg");
+        PostingList cat = new PostingList(new int[]{1, 5, 130, 70000, 2000000000}, new float[]{1, 2, 3, 4, 5});
+        PostingList dog = new PostingList(new int[]{5}, new float[]{0.5f});
+
+        try (SegmentWriter writer = new SegmentWriter(file, "https://www.skillbox.ru")) {
+            writer.addTerm("собака", dog);
+            writer.addTerm("кошка", cat);
+            writer.finish();
+        }
+
+        SegmentReader reader = SegmentReader.open(file);
+        assertEquals("https://www.skillbox.ru", reader.getSiteUrl());
+        assertEquals(2, reader.getTermCount());
+        assertEquals("кошка", reader.getLemma(0));
+        assertEquals(5, reader.getFrequency("кошка"));
+        assertEquals(0, reader.getFrequency("птица"));
+        assertArrayEquals(cat.getPageIds(), reader.getPostingList("кошка").getPageIds());
+        assertArrayEquals(cat.getRanks(), reader.getPostingList("кошка").getRanks());
+        assertArrayEquals(dog.getPageIds(), reader.getPostingList("собака").getPageIds());
+        assertEquals(0, reader.getPostingList("птица").size());
+        assertFalse(Files.exists(directory.resolve("1-1.seg.tmp")));
+    }
+
+    @Test
+    public void largePostingListTest() throws IOException {
+        Path file = directory.resolve("1-2.seg");
+        Random random = new Random(42);
+        int[] pageIds = new int[100000];
+        float[] ranks = new float[pageIds.length];
+        for (int i = 0, pageId = 0; i < pageIds.length; i++) {
+            pageId += 1 + random.nextInt(1000);
+            pageIds[i] = pageId;
+            ranks[i] = random.nextInt(50);
+        }
+
+        try (SegmentWriter writer = new SegmentWriter(file, "https://www.skillbox.ru")) {
+            writer.addTerm("курс", new PostingList(pageIds, ranks));
+            writer.finish();
+        }
+
+        PostingList postingList = SegmentReader.open(file).getPostingList("курс");
+        assertArrayEquals(pageIds, postingList.getPageIds());
+        assertArrayEquals(ranks, postingList.getRanks());
+        assertTrue(Files.size(file) < pageIds.length * 8L);
+    }
+
+    @Test
+    public void unfinishedSegmentIsNotPublishedTest() throws IOException {
+        Path file = directory.resolve("1-3.seg");
+        try (SegmentWriter writer = new SegmentWriter(file, "https://www.skillbox.ru")) {
+            writer.addTerm("курс", new PostingList(new int[]{1}, new float[]{1}));
+        }
+
+        assertFalse(Files.exists(file));
+        assertFalse(Files.exists(directory.resolve("1-3.seg.tmp")));
+    }
+
+    @Test
+    public void mergePostingListsTest() {
+        PostingList older = new PostingList(new int[]{1, 3, 5}, new float[]{1, 1, 1});
+        PostingList newer = new PostingList(new int[]{2, 3, 6}, new float[]{2, 2, 2});
+
+        PostingList merged = PostingLists.merge(older, newer);
+        assertArrayEquals(new int[]{1, 2, 3, 5, 6}, merged.getPageIds());
+        assertArrayEquals(new float[]{1, 2, 2, 1, 2}, merged.getRanks());
+    }
+
+    @Test
+    public void tieredMergePolicyTest() {
+        TieredMergePolicy policy = new TieredMergePolicy(3, 100);
+
+        assertEquals(List.of(), policy.findMerge(List.of(10L, 20L, 500L, 600L)));
+        assertEquals(List.of(0, 2, 3), policy.findMerge(List.of(10L, 50L, 20L, 30L, 1000L)));
+        assertEquals(List.of(0, 1, 3), policy.findMerge(List.of(150L, 200L, 2000L, 250L, 5000L)));
+    }
+
+    @Test
+    public void mergeSegmentsWithTombstonesTest() throws IOException, InterruptedException {
+        SegmentIndex segmentIndex = new SegmentIndex(
+                new SegmentConfig(true, directory.toString(), 2, 1L << 20, 0L), null);
+        segmentIndex.load();
+        Site site = new Site(SiteStatus.INDEXING, new Date(), null, "https://www.skillbox.ru", "Skillbox");
+        site.setId(1);
+        segmentIndex.startSite(site);
+
+        segmentIndex.flush(site, Map.of(1, Map.of("курс", 1, "кошка", 2)));
+        segmentIndex.flush(site, Map.of(2, Map.of("курс", 3)));
+        segmentIndex.flush(site, Map.of(3, Map.of("курс", 4, "собака", 1)));
+        segmentIndex.deletePage(site, 2);
+        assertArrayEquals(new int[]{1, 3}, segmentIndex.getPostingList(site.getId(), "курс").getPageIds());
+
+        segmentIndex.optimize(site.getId());
+        segmentIndex.awaitMerges();
+        segmentIndex.close();
+
+        assertEquals(1, segmentIndex.getSegmentCount(site.getId()));
+        assertEquals(2, segmentIndex.getFrequency(site.getId(), "курс"));
+        assertArrayEquals(new float[]{1, 4}, segmentIndex.getPostingList(site.getId(), "курс").getRanks());
+        assertArrayEquals(new int[]{3}, segmentIndex.getPostingList(site.getId(), "собака").getPageIds());
+
+        SegmentIndex reopened = new SegmentIndex(
+                new SegmentConfig(true, directory.toString(), 2, 1L << 20, 0L), null);
+        reopened.load();
+        assertArrayEquals(new int[]{1, 3}, reopened.getPostingList(site.getId(), "курс").getPageIds());
+        reopened.close();
+    }
+
+    @Test
+    public void appendTombstonesTest() throws IOException, InterruptedException {
+        SegmentIndex segmentIndex = new SegmentIndex(
+                new SegmentConfig(true, directory.toString(), 10, 1L << 20, 0L), null);
+        segmentIndex.load();
+        Site site = new Site(SiteStatus.INDEXING, new Date(), null, "https://www.skillbox.ru", "Skillbox");
+        site.setId(1);
+        segmentIndex.startSite(site);
+
+        segmentIndex.flush(site, Map.of(1, Map.of("курс", 1), 2, Map.of("курс", 2), 3, Map.of("курс", 3)));
+        segmentIndex.deletePage(site, 1);
+        segmentIndex.deletePage(site, 3);
+        segmentIndex.deletePage(site, 3);
+        segmentIndex.awaitMerges();
+        segmentIndex.close();
+
+        Path tombstones = directory.resolve("1.del");
+        assertEquals(2 + "https://www.skillbox.ru".length() + 2 * Integer.BYTES, Files.size(tombstones));
+
+        SegmentIndex reopened = new SegmentIndex(
+                new SegmentConfig(true, directory.toString(), 10, 1L << 20, 0L), null);
+        reopened.load();
+        assertArrayEquals(new int[]{2}, reopened.getPostingList(site.getId(), "курс").getPageIds());
+        reopened.close();
+    }
+
+    @Test
+    public void siteGenerationSegmentsTest() throws IOException, InterruptedException {
+        SegmentIndex segmentIndex = new SegmentIndex(
+                new SegmentConfig(true, directory.toString(), 10, 1L << 20, 0L), null);
+        segmentIndex.load();
+        Site site = new Site(SiteStatus.INDEXED, new Date(), null, "https://www.skillbox.ru", "Skillbox");
+        site.setId(1);
+        Site generation = new Site(SiteStatus.INDEXING, new Date(), null, "https://www.skillbox.ru", "Skillbox");
+        generation.setId(2);
+        segmentIndex.startSite(site);
+
+        segmentIndex.flush(site, Map.of(1, Map.of("курс", 1)));
+        segmentIndex.flush(generation, Map.of(5, Map.of("курс", 2)));
+        segmentIndex.deletePage(generation, 1);
+
+        assertFalse(segmentIndex.hasSegments(generation));
+        assertArrayEquals(new int[]{1}, segmentIndex.getPostingList(site.getId(), "курс").getPageIds());
+        assertEquals(0, segmentIndex.getPostingList(generation.getId(), "курс").size());
+
+        segmentIndex.dropSite(site.getId());
+        assertFalse(segmentIndex.hasSegments(site));
+        segmentIndex.awaitMerges();
+        segmentIndex.close();
+    }
+}
@@ -0,0 +1,101 @@
+package searchengine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import searchengine.model.*;
+import searchengine.repository.IndexRepository;
+import searchengine.repository.LemmaRepository;
+import searchengine.repository.PageRepository;
+import searchengine.repository.SiteRepository;
+import searchengine.utils.IndexingUtils;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Переключение поиска на новое поколение сайта и удаление данных прежнего поколения
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class SiteGenerationTest {
+    private static final String url = "https://www.skillbox.ru";
+    @Autowired
+    private SiteRepository siteRepository;
+    @Autowired
+    private PageRepository pageRepository;
+    @Autowired
+    private LemmaRepository lemmaRepository;
+    @Autowired
+    private IndexRepository indexRepository;
+
+    @AfterEach
+    public void clear() {
+        indexRepository.deleteAllInBatch();
+        lemmaRepository.deleteAllInBatch();
+        pageRepository.deleteAll();
+        siteRepository.deleteAll();
+    }
+
+    @Test
+    public void activateSiteTest() {
+        Site current = siteRepository.save(new Site(SiteStatus.INDEXED, new Date(), null, url, "Skillbox"));
+        Page currentPage = addPage(current);
+
+        Site generation = IndexingUtils.createSiteGeneration(url, "Skillbox");
+        assertFalse(generation.getActive());
+        Page generationPage = addPage(generation);
+        assertEquals(current.getId(), siteRepository.findByUrl(url).getId());
+
+        IndexingUtils.activateSite(generation);
+
+        assertEquals(generation.getId(), siteRepository.findByUrl(url).getId());
+        assertTrue(siteRepository.findById(current.getId()).isEmpty());
+        assertTrue(pageRepository.findById(currentPage.getId()).isEmpty());
+        assertEquals(1, indexRepository.findByPageId(generationPage).size());
+        assertEquals(1, lemmaRepository.getListLemmaBySite(generation).size());
+    }
+
+    @Test
+    public void deleteInactiveSitesTest() {
+        Site current = siteRepository.save(new Site(SiteStatus.INDEXED, new Date(), null, url, "Skillbox"));
+        addPage(current);
+        Site failed = IndexingUtils.createSiteGeneration(url, "Skillbox");
+        addPage(failed);
+
+        IndexingUtils.deleteInactiveSites();
+
+        assertEquals(List.of(current.getId()), siteRepository.findAll().stream().map(Site::getId).toList());
+        assertEquals(1, pageRepository.countAllBySiteId(current));
+    }
+
+    @Test
+    public void timeLimitedGenerationTest() {
+        Site current = siteRepository.save(new Site(SiteStatus.INDEXED, new Date(), null, url, "Skillbox"));
+        Page currentPage = addPage(current);
+        Site generation = IndexingUtils.createSiteGeneration(url, "Skillbox");
+        addPage(generation);
+
+        IndexingUtils.finishIndexedSite(generation, false);
+
+        assertEquals(current.getId(), siteRepository.findByUrl(url).getId());
+        assertEquals(SiteStatus.FAILED, siteRepository.findById(generation.getId()).get().getStatus());
+        assertEquals(1, indexRepository.findByPageId(currentPage).size());
+
+        IndexingUtils.deleteInactiveSites();
+
+        assertEquals(List.of(current.getId()), siteRepository.findAll().stream().map(Site::getId).toList());
+        assertEquals(1, pageRepository.countAllBySiteId(current));
+    }
+
+    private Page addPage(Site site) {
+        Page page = pageRepository.save(new Page(site, url + "/courses", 200, "<html>курсы</html>"));
+        Lemma lemma = lemmaRepository.save(new Lemma(site, "курс", 1));
+        indexRepository.save(new Index(page, lemma, 1));
+        return page;
+    }
+}
@@ -20,6 +20,7 @@ import searchengine.repository.LemmaRepository;
 import searchengine.repository.PageRepository;
 import searchengine.repository.SiteRepository;
 import searchengine.services.impl.IndexingServiceImpl;
+import searchengine.utils.HtmlExtractor;
 import searchengine.utils.IndexingUtils;
 
 import java.io.IOException;
@@ -82,7 +83,7 @@ public class TestForTest {
 
                 System.out.println(new Date());
                 for (Page page: pathList) {
-                    HashMap<String, Integer> lemmas = lemmatizer.getLemmas(lemmatizer.clearHTML(page.getContent()));
+                    HashMap<String, Integer> lemmas = lemmatizer.getLemmas(HtmlExtractor.getText(page));
                     List<Lemma> newLemmaList = new ArrayList<>();
                     List<Index> newIndexList = new ArrayList<>();
                     List<Lemma> savedLemma = new ArrayList<>();
@@ -0,0 +1,75 @@
+package searchengine;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import searchengine.lemmas.WordTokenizer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Сравнение разбиения текста регулярным выражением, которое использовалось раньше, и посимвольного разбиения
+ * по времени и по выделенной памяти. Тест исключен из обычного запуска.
+ */
+@Tag("benchmark")
+public class WordTokenizerBenchmarkTest {
+    private static final int repeatCount = 5;
+
+    @Test
+    public void tokenizerSpeedTest() {
+        String text = WordTokenizerTest.createText(2_000_000);
+        warmUp(text);
+
+        long regexTime = measureTime(() -> WordTokenizerTest.splitByRegex(text));
+        long tokenizerTime = measureTime(() -> WordTokenizer.forEachWord(text, word -> { }));
+        assertTrue(tokenizerTime < regexTime, "char scanning " + tokenizerTime + " ms, regex " + regexTime + " ms");
+    }
+
+    @Test
+    public void tokenizerAllocationTest() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean, "Allocation counters are not available");
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        assumeTrue(allocationBean.isThreadAllocatedMemorySupported(), "Allocation counters are not available");
+
+        String text = WordTokenizerTest.createText(2_000_000);
+        warmUp(text);
+
+        long regexBytes = measureAllocation(allocationBean, () -> WordTokenizerTest.splitByRegex(text));
+        long tokenizerBytes = measureAllocation(allocationBean, () -> WordTokenizer.forEachWord(text, word -> { }));
+        assertTrue(tokenizerBytes < regexBytes, "char scanning " + tokenizerBytes + " bytes, regex " + regexBytes + " bytes");
+    }
+
+    private static void warmUp(String text) {
+        for (int i = 0; i < 3; i++) {
+            WordTokenizerTest.splitByRegex(text);
+            WordTokenizer.forEachWord(text, word -> { });
+        }
+    }
+
+    /**
+     * @return среднее время выполнения в мс
+     */
+    private static long measureTime(Runnable action) {
+        long begin = System.nanoTime();
+        for (int i = 0; i < repeatCount; i++) {
+            action.run();
+        }
+        return Math.max(1, (System.nanoTime() - begin) / repeatCount / 1_000_000);
+    }
+
+    /**
+     * @return среднее количество байтов, выделенных текущим потоком
+     */
+    private static long measureAllocation(com.sun.management.ThreadMXBean threadBean, Runnable action) {
+        long threadId = Thread.currentThread().getId();
+        long allocatedBytes = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < repeatCount; i++) {
+            action.run();
+        }
+        return (threadBean.getThreadAllocatedBytes(threadId) - allocatedBytes) / repeatCount;
+    }
+}
@@ -0,0 +1,71 @@
+package searchengine;
+
+import org.junit.jupiter.api.Test;
+import searchengine.lemmas.WordTokenizer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WordTokenizerTest {
+
+    @Test
+    public void splitWordsTest() {
+        assertEquals(List.of("повторное", "появление", "леопарда", "в", "осетии", "кто", "то", "ёж", "ёлка"),
+                WordTokenizer.getWords("Повторное  появление леопарда в\tОсетии, кто-то: ЁЖ (Ёлка)!"));
+        assertEquals(List.of("курс", "в", "году"), WordTokenizer.getWords("Java-курс в 2024 году"));
+        assertEquals(List.of(), WordTokenizer.getWords("  , 2024 skillbox "));
+        assertEquals(List.of(), WordTokenizer.getWords(""));
+        assertEquals(List.of(), WordTokenizer.getWords(null));
+    }
+
+    @Test
+    public void longWordTest() {
+        String word = "а".repeat(100);
+        assertEquals(List.of(word, "б"), WordTokenizer.getWords(word.toUpperCase(Locale.ROOT) + " б"));
+    }
+
+    @Test
+    public void regexEquivalenceTest() {
+        String text = createText(200_000);
+        Map<String, Integer> expected = new HashMap<>();
+        Map<String, Integer> actual = new HashMap<>();
+        for (String word: splitByRegex(text)) {
+            if (!word.isBlank()) {
+                expected.merge(word.replaceAll("[^а-яё]", ""), 1, Integer::sum);
+            }
+        }
+        WordTokenizer.forEachWord(text, word -> actual.merge(word, 1, Integer::sum));
+        expected.remove("");
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Разбиение текста регулярным выражением, которое использовалось до посимвольного разбиения
+     */
+    static List<String> splitByRegex(String text) {
+        List<String> result = new ArrayList<>();
+        String cleanLine = text.toLowerCase(Locale.ROOT).replaceAll("[^а-яё&&[^\\s{2,}]]+", " ");
+        if (!cleanLine.isEmpty()) {
+            result = List.of(cleanLine.split(" "));
+        }
+        return result;
+    }
+
+    static String createText(int length) {
+        String[] words = {"Повторное", "появление", "леопарда", "в", "Осетии", "позволяет", "предположить", "что",
+                "леопард", "постоянно", "обитает", "некоторых", "районах", "Северного", "Кавказа", "Skillbox", "2024"};
+        String[] separators = {" ", ", ", ". ", " - ", "\n"};
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(length + 32);
+        while (builder.length() < length) {
+            builder.append(words[random.nextInt(words.length)]).append(separators[random.nextInt(separators.length)]);
+        }
+        return builder.toString();
+    }
+}